@@ -0,0 +1,23 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行所有 benchmark，并默认打开 GC profiler，输出每次操作的分配速率 (gc.alloc.rate.norm)
+ * <p>
+ * 用法: java -jar target/benchmarks.jar [JMH 参数，如 MockitoScenarioBenchmark.testSpy -f 1]
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class);
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,47 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 每个 fork 只测一次：新 JVM 里第一次 mock(List/AbstractList/Map) 的耗时
+ * <p>
+ * withDiskCache 的第一个 fork 负责填充缓存，之后的 fork 直接加载缓存中的字节码
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+
+    @Benchmark
+    @Fork(10)
+    public void withoutCache(Blackhole bh) {
+        createMocks(bh);
+    }
+
+    @Benchmark
+    @Fork(value = 10, jvmArgsAppend = "-Dsogou.mockito.cache.dir=target/mock-class-cache")
+    public void withDiskCache(Blackhole bh) {
+        createMocks(bh);
+    }
+
+    private static void createMocks(Blackhole bh) {
+        bh.consume(mock(List.class));
+        bh.consume(mock(AbstractList.class));
+        bh.consume(mock(Map.class));
+    }
+}
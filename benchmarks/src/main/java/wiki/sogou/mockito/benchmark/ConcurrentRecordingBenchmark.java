@@ -0,0 +1,98 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static wiki.sogou.mockito.counting.CountingMocks.withConcurrentLog;
+
+/**
+ * 1 到 64 个线程同时调用同一个打过桩的 List mock，比较 Mockito 默认的调用容器和 withConcurrentLog() 的吞吐量随线程数的变化
+ * <p>
+ * Mockito 默认的容器每次调用都要拿调用列表的锁和查找打桩的锁；withConcurrentLog() 的 mock 由 RecordingInvocationContainer
+ * 按线程记录、无锁查找打桩，剩下的共享写入只有 Mockito 给 Invocation 分配序号的 AtomicInteger。
+ * 位置用 lazy 模式记录，否则每次调用展开栈的开销会盖过锁的差别。
+ * 比较同一模式下 _1 到 _64 的总吞吐量 (需要足够的 CPU 核数)：默认容器在几个线程之后就不再增长，
+ * withConcurrentLog() 应当随核数继续增长。mock 每个 iteration 重新创建，避免记录无限增长
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dsogou.mockito.location=lazy")
+@State(Scope.Benchmark)
+public class ConcurrentRecordingBenchmark {
+
+    private List<String> mockitoList;
+    private List<String> concurrentList;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        mockitoList = mock(List.class);
+        concurrentList = mock(List.class, withConcurrentLog());
+        when(mockitoList.get(0)).thenReturn("first");
+        when(concurrentList.get(0)).thenReturn("first");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean mockito_1() {
+        return mockitoList.add(mockitoList.get(0));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean mockito_4() {
+        return mockitoList.add(mockitoList.get(0));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean mockito_16() {
+        return mockitoList.add(mockitoList.get(0));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean mockito_64() {
+        return mockitoList.add(mockitoList.get(0));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean concurrentLog_1() {
+        return concurrentList.add(concurrentList.get(0));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean concurrentLog_4() {
+        return concurrentList.add(concurrentList.get(0));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean concurrentLog_16() {
+        return concurrentList.add(concurrentList.get(0));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean concurrentLog_64() {
+        return concurrentList.add(concurrentList.get(0));
+    }
+}
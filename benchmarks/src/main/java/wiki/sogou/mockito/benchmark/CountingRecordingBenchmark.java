@@ -0,0 +1,52 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static wiki.sogou.mockito.counting.CountingMocks.withCounting;
+
+/**
+ * 同一个 mock 被调用很多次时，完整记录和只计数两种模式的单次调用耗时与分配量 (配合 -prof gc 查看)
+ * <p>
+ * 完整记录的 mock 每个 iteration 重新创建，否则保存的 Invocation 会撑爆堆
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CountingRecordingBenchmark {
+
+    private LinkedList<String> recording;
+    private LinkedList<String> counting;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        recording = mock(LinkedList.class);
+        counting = mock(LinkedList.class, withCounting());
+    }
+
+    @Benchmark
+    public boolean fullRecording() {
+        return recording.add("three times");
+    }
+
+    @Benchmark
+    public boolean countOnly() {
+        return counting.add("three times");
+    }
+}
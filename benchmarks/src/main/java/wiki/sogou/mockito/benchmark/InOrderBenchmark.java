@@ -0,0 +1,71 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.mockito.InOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.sogou.mockito.verification.SequencedInOrder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+/**
+ * mockCount 个 mock 轮流被调用共 callCount 次后，按顺序验证全部调用的耗时
+ * <p>
+ * Mockito 的 InOrder 随调用数大致平方增长，SequencedInOrder 应该接近线性
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InOrderBenchmark {
+
+    @Param({"2", "16", "64"})
+    int mockCount;
+
+    @Param({"1000", "10000"})
+    int callCount;
+
+    private List<String>[] mocks;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        mocks = new List[mockCount];
+        for (int i = 0; i < mockCount; i++) {
+            mocks[i] = mock(List.class);
+        }
+        for (int i = 0; i < callCount; i++) {
+            mocks[i % mockCount].add("call " + i);
+        }
+    }
+
+    @Benchmark
+    public void mockitoInOrder() {
+        InOrder inOrder = inOrder((Object[]) mocks);
+        for (int i = 0; i < callCount; i++) {
+            inOrder.verify(mocks[i % mockCount]).add("call " + i);
+        }
+    }
+
+    @Benchmark
+    public void sequencedInOrder() {
+        SequencedInOrder inOrder = SequencedInOrder.of((Object[]) mocks);
+        for (int i = 0; i < callCount; i++) {
+            inOrder.verify(mocks[i % mockCount]).add("call " + i);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * JFR 事件的开销：不发事件、发事件但没有开启记录、开启记录，每个配置单独 fork
+ * <p>
+ * 需要运行在支持 JFR 的 JVM 上
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JfrEventsBenchmark {
+
+    @Benchmark
+    @Fork(1)
+    public Object noEvents() {
+        return scenario();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dsogou.mockito.jfr=true")
+    public Object eventsNotRecorded() {
+        return scenario();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Dsogou.mockito.jfr=true", "-XX:StartFlightRecording=disk=false,maxsize=64m"})
+    public Object eventsRecorded() {
+        return scenario();
+    }
+
+    /**
+     * 与 MockitoTest.testStubbing 相同：创建、打桩、调用、验证
+     */
+    private static Object scenario() {
+        LinkedList<String> mockedList = mock(LinkedList.class);
+        when(mockedList.get(0)).thenReturn("first");
+        Object value = mockedList.get(0);
+        mockedList.get(999);
+        verify(mockedList).get(0);
+        return value;
+    }
+}
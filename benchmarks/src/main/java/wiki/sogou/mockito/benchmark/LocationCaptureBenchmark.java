@@ -0,0 +1,57 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 每次调用的位置记录开销：Mockito 默认的 MockMaker 对比 SogouMockMaker 的 lazy/sampled 模式
+ * <p>
+ * 模式由系统属性在 JVM 启动时决定，所以每个 benchmark 单独 fork；mock 是 stubOnly 的，不积累调用记录
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class LocationCaptureBenchmark {
+
+    private List<String> mockedList;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        mockedList = mock(List.class, withSettings().stubOnly());
+    }
+
+    @Benchmark
+    @Fork(1)
+    public boolean mockitoDefault() {
+        return mockedList.add("one");
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dsogou.mockito.location=lazy")
+    public boolean lazyLocation() {
+        return mockedList.add("one");
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dsogou.mockito.location=sampled")
+    public boolean sampledLocation() {
+        return mockedList.add("one");
+    }
+}
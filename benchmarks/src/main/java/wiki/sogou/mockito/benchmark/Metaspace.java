@@ -0,0 +1,22 @@
+package wiki.sogou.mockito.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+
+/**
+ * 读取 Metaspace 内存池的已用字节数，没有这个内存池的 JVM 上返回 0
+ */
+final class Metaspace {
+
+    private Metaspace() {
+    }
+
+    static long used() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace")) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        return 0;
+    }
+}
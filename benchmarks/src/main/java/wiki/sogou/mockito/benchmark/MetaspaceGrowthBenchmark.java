@@ -0,0 +1,97 @@
+package wiki.sogou.mockito.benchmark;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 每次操作生成一批新的接口类型，各 mock 一次、调用一次后丢弃，操作结束时 GC 并记录 Metaspace 相对开始时的增长
+ * <ul>
+ * <li>mockito: Mockito 默认的 MockMaker</li>
+ * <li>strong: SogouMockMaker 自己生成类 (用 lazy 位置记录启用，不写磁盘缓存)，mock 类一直保留</li>
+ * <li>weak: 同上并设置 sogou.mockito.unloadableClasses，mock 类在 mock 被回收后可以卸载</li>
+ * </ul>
+ * 各轮的 metaspaceKb 持续上涨说明 mock 类没有被卸载
+ */
+@State(Scope.Benchmark)
+public class MetaspaceGrowthBenchmark {
+
+    @Param({"mockito", "strong", "weak"})
+    String retention;
+
+    @Param({"500"})
+    int typesPerOp;
+
+    private long baseline;
+    private int generation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!retention.equals("mockito")) {
+            System.setProperty("sogou.mockito.location", "lazy");
+        }
+        if (retention.equals("weak")) {
+            System.setProperty("sogou.mockito.unloadableClasses", "true");
+        }
+        mock(Runnable.class);
+        System.gc();
+        baseline = Metaspace.used();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 10)
+    @Fork(value = 1, jvmArgsAppend = "-XX:MaxMetaspaceSize=512m")
+    public void createAndDrop(MetaspaceCounter counter) throws Exception {
+        for (int i = 0; i < typesPerOp; i++) {
+            Class<?> type = generateInterface(generation++);
+            Object mocked = mock(type);
+            Method call = type.getMethod("call", int.class);
+            call.invoke(mocked, i);
+        }
+        System.gc();
+        counter.metaspaceKb = (Metaspace.used() - baseline) / 1024;
+    }
+
+    /**
+     * 每个接口定义在自己的类加载器里，没有引用之后可以和 mock 类一起被卸载
+     */
+    private static Class<?> generateInterface(int generation) {
+        return new ByteBuddy()
+                .makeInterface()
+                .name("wiki.sogou.mockito.generated.Api" + generation)
+                .defineMethod("call", String.class, Visibility.PUBLIC)
+                .withParameters(int.class)
+                .withoutCode()
+                .make()
+                .load(MetaspaceGrowthBenchmark.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class MetaspaceCounter {
+
+        public long metaspaceKb;
+    }
+}
@@ -0,0 +1,108 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.sogou.mockito.annotations.FastMocks;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 有 24 个 @Mock 字段的测试实例，比较 MockitoAnnotations.openMocks 和 FastMocks.openMocks (生成的初始化器) 的每次初始化开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockInitBenchmark {
+
+    @Benchmark
+    public Object openMocks() throws Exception {
+        ManyMocks test = new ManyMocks();
+        MockitoAnnotations.openMocks(test).close();
+        return test;
+    }
+
+    @Benchmark
+    public Object fastMocks() throws Exception {
+        ManyMocks test = new ManyMocks();
+        FastMocks.openMocks(test).close();
+        return test;
+    }
+
+    public static class ManyMocks {
+        @Mock
+        private List list;
+        @Mock
+        private LinkedList linkedList;
+        @Mock
+        private Map map;
+        @Mock
+        private Set set;
+        @Mock
+        private Queue queue;
+        @Mock
+        private Deque deque;
+        @Mock
+        private Collection collection;
+        @Mock
+        private Iterable iterable;
+        @Mock
+        private Iterator iterator;
+        @Mock
+        private Comparator comparator;
+        @Mock
+        private Runnable runnable;
+        @Mock
+        private Callable callable;
+        @Mock
+        private CharSequence charSequence;
+        @Mock
+        private Appendable appendable;
+        @Mock
+        private AutoCloseable autoCloseable;
+        @Mock
+        private Supplier supplier;
+        @Mock
+        private Function function;
+        @Mock
+        private Consumer consumer;
+        @Mock
+        private Predicate predicate;
+        @Mock
+        private BiFunction biFunction;
+        @Mock
+        Executor executor;
+        @Mock
+        ExecutorService executorService;
+        @Mock
+        ScheduledExecutorService scheduledExecutorService;
+        @Mock
+        Readable readable;
+    }
+}
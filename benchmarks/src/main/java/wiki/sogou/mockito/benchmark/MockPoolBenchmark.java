@@ -0,0 +1,60 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.sogou.mockito.pool.MockPool;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static wiki.sogou.mockito.counting.CountingMocks.verifyCount;
+import static wiki.sogou.mockito.pool.MockPool.stateOf;
+
+/**
+ * 一个短命 mock 的完整生命周期 (创建、打桩、调用、验证)：每次新建 mock 对比从池中取出再归还
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MockPoolBenchmark {
+
+    private MockPool<LinkedList> pool;
+
+    @Setup
+    public void setUp() {
+        pool = new MockPool<>(LinkedList.class, 4);
+    }
+
+    @Benchmark
+    public Object freshMock() {
+        LinkedList<String> mockedList = mock(LinkedList.class);
+        when(mockedList.get(0)).thenReturn("first");
+        Object value = mockedList.get(0);
+        verify(mockedList).get(0);
+        return value;
+    }
+
+    @Benchmark
+    public Object pooledMock() {
+        LinkedList<String> mockedList = pool.acquire();
+        stateOf(mockedList).doReturn("first").when(mockedList).get(0);
+        Object value = mockedList.get(0);
+        verifyCount(mockedList).get(0);
+        pool.release(mockedList);
+        return value;
+    }
+}
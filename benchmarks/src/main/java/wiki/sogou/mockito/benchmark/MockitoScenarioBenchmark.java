@@ -0,0 +1,290 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.exceptions.base.MockitoAssertionError;
+import org.mockito.exceptions.base.MockitoException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 把 wiki.sogou.mockito.MockitoTest 中的每个场景变成一个 benchmark，
+ * 同时输出吞吐量和平均耗时，配合 BenchmarkRunner 中的 GC profiler 输出每次操作的分配量
+ * <p>
+ * 每个 benchmark 都完整地走一遍 mock 创建、打桩、调用、验证，与测试中的写法保持一致，
+ * 预期会抛出的异常在这里被吞掉
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MockitoScenarioBenchmark {
+
+    @Benchmark
+    public void testVerifyBehaviour() {
+        List mockedList = mock(List.class);
+
+        mockedList.add("one");
+        mockedList.clear();
+
+        verify(mockedList).add("one");
+        verify(mockedList).clear();
+    }
+
+    @Benchmark
+    public void testStubbing(Blackhole bh) {
+        LinkedList mockedList = mock(LinkedList.class);
+
+        when(mockedList.get(0)).thenReturn("first");
+        when(mockedList.get(1)).thenThrow(new RuntimeException());
+
+        bh.consume(mockedList.get(0));
+        try {
+            mockedList.get(1);
+        } catch (RuntimeException expected) {
+            bh.consume(expected);
+        }
+        bh.consume(mockedList.get(999));
+
+        verify(mockedList).get(0);
+    }
+
+    @Benchmark
+    public void testArgumentMatchers(Blackhole bh) {
+        LinkedList<String> mockedList = mock(LinkedList.class);
+        when(mockedList.get(anyInt())).thenReturn("element");
+        when(mockedList.contains(argThat(s -> false))).thenReturn(true);
+
+        bh.consume(mockedList.get(999));
+        mockedList.add("longer than five");
+
+        verify(mockedList).get(anyInt());
+        verify(mockedList).add(argThat(someString -> someString.length() > 5));
+    }
+
+    @Benchmark
+    public void testVerifyNumber() {
+        LinkedList<String> mockedList = mock(LinkedList.class);
+        mockedList.add("once");
+
+        mockedList.add("twice");
+        mockedList.add("twice");
+
+        mockedList.add("three times");
+        mockedList.add("three times");
+        mockedList.add("three times");
+
+        verify(mockedList).add("once");
+        verify(mockedList, times(1)).add("once");
+        verify(mockedList, times(2)).add("twice");
+        verify(mockedList, times(3)).add("three times");
+        verify(mockedList, never()).add("never happened");
+        verify(mockedList, atMostOnce()).add("once");
+        verify(mockedList, atLeastOnce()).add("three times");
+        verify(mockedList, atLeast(2)).add("three times");
+        verify(mockedList, atMost(5)).add("three times");
+    }
+
+    @Benchmark
+    public void testStubbingWithExceptions(Blackhole bh) {
+        LinkedList<String> mockList = mock(LinkedList.class);
+        doThrow(new RuntimeException()).when(mockList).clear();
+        try {
+            mockList.clear();
+        } catch (RuntimeException expected) {
+            bh.consume(expected);
+        }
+    }
+
+    @Benchmark
+    public void testVerifyOrder() {
+        List singleMock = mock(List.class);
+        singleMock.add("was added first");
+        singleMock.add("was added second");
+
+        InOrder inOrder = inOrder(singleMock);
+        inOrder.verify(singleMock).add("was added first");
+        inOrder.verify(singleMock).add("was added second");
+
+        List firstMock = mock(List.class);
+        List secondMock = mock(List.class);
+        firstMock.add("was called first");
+        secondMock.add("was called second");
+
+        InOrder inOrder2 = inOrder(firstMock, secondMock);
+        inOrder2.verify(firstMock).add("was called first");
+        inOrder2.verify(secondMock).add("was called second");
+    }
+
+    @Benchmark
+    public void testNever() {
+        List mockOne = mock(List.class);
+        mockOne.add("one");
+
+        verify(mockOne).add("one");
+        verify(mockOne, never()).add("two");
+    }
+
+    @Benchmark
+    public void testVerifyNoMoreInteractions(Blackhole bh) {
+        List mockedList = mock(List.class);
+        mockedList.add("one");
+        mockedList.add("two");
+
+        verify(mockedList).add("one");
+        try {
+            verifyNoMoreInteractions(mockedList);
+        } catch (MockitoAssertionError expected) {
+            bh.consume(expected);
+        }
+    }
+
+    /**
+     * MockitoTest.test，打印换成 Blackhole
+     */
+    @Benchmark
+    public void test(Blackhole bh) {
+        Map<String, String> mockedList = mock(Map.class);
+        when(mockedList.get("some arg"))
+                .thenThrow(new RuntimeException())
+                .thenReturn("foo");
+
+        try {
+            mockedList.get("some arg");
+        } catch (RuntimeException expected) {
+            bh.consume(expected);
+        }
+        bh.consume(mockedList.get("some arg"));
+        bh.consume(mockedList.get("some arg"));
+    }
+
+    @Benchmark
+    public void testConsecutiveCall(Blackhole bh) {
+        Map<String, String> mock = mock(Map.class);
+
+        when(mock.get("some arg"))
+                .thenThrow(new RuntimeException())
+                .thenReturn("foo");
+
+        try {
+            mock.get("some arg");
+        } catch (RuntimeException expected) {
+            bh.consume(expected);
+        }
+        bh.consume(mock.get("some arg"));
+        bh.consume(mock.get("some arg"));
+
+        when(mock.get("some arg"))
+                .thenReturn("one", "two", "three");
+        when(mock.get("some arg"))
+                .thenReturn("one");
+        when(mock.get("some arg"))
+                .thenReturn("two");
+        bh.consume(mock.get("some arg"));
+    }
+
+    @Benchmark
+    public void testCallback(Blackhole bh) {
+        Map<String, String> mock = mock(Map.class);
+        when(mock.get(anyString())).thenAnswer(
+                invocation -> "called with arguments: " + Arrays.toString(invocation.getArguments()));
+
+        bh.consume(mock.get("foo"));
+    }
+
+    @Benchmark
+    public void testFamilyMethods(Blackhole bh) {
+        List<String> mockedList = mock(List.class);
+        doThrow(new RuntimeException()).when(mockedList).clear();
+        try {
+            mockedList.clear();
+        } catch (RuntimeException expected) {
+            bh.consume(expected);
+        }
+    }
+
+    @Benchmark
+    public void testSpy(Blackhole bh) {
+        List list = new LinkedList();
+        List spy = spy(list);
+
+        when(spy.size()).thenReturn(100);
+
+        spy.add("one");
+        spy.add("two");
+
+        bh.consume(spy.get(0));
+        bh.consume(spy.size());
+
+        verify(spy).add("one");
+        verify(spy).add("two");
+    }
+
+    @Benchmark
+    public void testSpy2() {
+        List list = new LinkedList();
+        List spy = spy(list);
+
+        doReturn("foo").when(spy).get(0);
+    }
+
+    @Benchmark
+    public void testWithLegacySystems(Blackhole bh) {
+        List mock = mock(List.class, RETURNS_SMART_NULLS);
+        List mockTwo = mock(List.class, (a) -> new ArrayList<>());
+        bh.consume(mock.subList(0, 1));
+        bh.consume(mockTwo.subList(0, 1));
+    }
+
+    @Benchmark
+    public void testCaptureArgument(Blackhole bh) {
+        List mock = mock(List.class, RETURNS_SMART_NULLS);
+        mock.add(Arrays.asList("John"));
+
+        ArgumentCaptor<List> argument = ArgumentCaptor.forClass(List.class);
+        verify(mock).add(argument.capture());
+        bh.consume(argument.getValue());
+    }
+
+    @Benchmark
+    public void testRealPartialMock(Blackhole bh) {
+        List list = spy(new LinkedList());
+        bh.consume(list);
+
+        List mock = mock(List.class);
+        try {
+            when(mock.get(anyInt())).thenCallRealMethod();
+        } catch (MockitoException expected) {
+            // List.get 是抽象方法，没有真实实现可以调用
+            bh.consume(expected);
+        }
+    }
+
+    @Benchmark
+    public void testResettingMock() {
+        List mock = mock(List.class);
+        when(mock.size()).thenReturn(10);
+        mock.add(1);
+
+        reset(mock);
+    }
+}
@@ -0,0 +1,61 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.mockito.ArgumentCaptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.sogou.mockito.captor.IntArgumentCaptor;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 捕获 callCount 次 LinkedList.get(int) 的下标，用 -prof gc 比较 ArgumentCaptor 和 IntArgumentCaptor 的分配量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveCaptorBenchmark {
+
+    @Param({"1000", "100000"})
+    int callCount;
+
+    private LinkedList<String> mockedList;
+
+    @Setup
+    public void setUp() {
+        mockedList = mock(LinkedList.class);
+        for (int i = 0; i < callCount; i++) {
+            mockedList.get(i);
+        }
+    }
+
+    @Benchmark
+    public int argumentCaptor() {
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        verify(mockedList, times(callCount)).get(captor.capture());
+        return captor.getAllValues().size();
+    }
+
+    @Benchmark
+    public int intArgumentCaptor() {
+        IntArgumentCaptor captor = new IntArgumentCaptor();
+        verify(mockedList, times(callCount)).get(captor.capture());
+        return captor.size();
+    }
+}
@@ -0,0 +1,55 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static wiki.sogou.mockito.answers.CachedSmartNulls.cachedSmartNulls;
+
+/**
+ * 重复调用未打桩、返回非 final 类型的方法，比较 RETURNS_SMART_NULLS 和 cachedSmartNulls()
+ * <p>
+ * stubOnly 的 mock 不保存调用记录，测出来的只是返回 smart null 本身的开销
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SmartNullBenchmark {
+
+    private List<?> smartNulls;
+
+    private List<?> cachedSmartNulls;
+
+    @Setup
+    public void setUp() {
+        smartNulls = mock(List.class, withSettings().stubOnly().defaultAnswer(RETURNS_SMART_NULLS));
+        cachedSmartNulls = mock(List.class, withSettings().stubOnly().defaultAnswer(cachedSmartNulls()));
+    }
+
+    @Benchmark
+    public Iterator<?> returnsSmartNulls() {
+        return smartNulls.listIterator();
+    }
+
+    @Benchmark
+    public Iterator<?> returnsCachedSmartNulls() {
+        return cachedSmartNulls.listIterator();
+    }
+}
@@ -0,0 +1,72 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.spy;
+import static wiki.sogou.mockito.spy.DelegatingSpies.delegatingSpy;
+
+/**
+ * 比较 spy() 和 delegatingSpy() 在大集合上的创建时间；用 -prof gc 看每次创建的分配量 (gc.alloc.rate.norm)，
+ * 即 spy 额外持有的堆
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SpyCreationBenchmark {
+
+    @Param({"10", "100000"})
+    int size;
+
+    private ArrayList<Integer> list;
+
+    private HashMap<Integer, Integer> map;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>();
+        map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+            map.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> spyList() {
+        return spy(list);
+    }
+
+    @Benchmark
+    public List<Integer> delegatingSpyList() {
+        return delegatingSpy(list);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> spyMap() {
+        return spy(map);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> delegatingSpyMap() {
+        return delegatingSpy(map);
+    }
+}
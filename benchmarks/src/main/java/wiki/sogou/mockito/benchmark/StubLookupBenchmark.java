@@ -0,0 +1,69 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.sogou.mockito.stubbing.StubIndex;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 一个 Map mock 上有 stubCount 个精确实参的打桩时，一次 get 的耗时
+ * <p>
+ * mockitoStubbing 随打桩数量线性增长，stubIndex 应该基本不变
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StubLookupBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int stubCount;
+
+    private Map<String, String> mockitoStubbed;
+    private Map<String, String> indexStubbed;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        keys = new String[stubCount];
+        mockitoStubbed = mock(Map.class, withSettings().stubOnly());
+        StubIndex stubs = new StubIndex();
+        indexStubbed = mock(Map.class, withSettings().stubOnly().defaultAnswer(stubs));
+        for (int i = 0; i < stubCount; i++) {
+            keys[i] = "arg" + i;
+            when(mockitoStubbed.get(keys[i])).thenReturn("value" + i);
+            stubs.doReturn("value" + i).when(indexStubbed).get(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public String mockitoStubbing() {
+        return mockitoStubbed.get(nextKey());
+    }
+
+    @Benchmark
+    public String stubIndex() {
+        return indexStubbed.get(nextKey());
+    }
+
+    private String nextKey() {
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return keys[next];
+    }
+}
@@ -0,0 +1,84 @@
+package wiki.sogou.mockito.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static wiki.sogou.mockito.answers.StacklessAnswers.throwsStackless;
+
+/**
+ * 反复调用抛异常的打桩：thenThrow (实例/类型) 对比 throwsStackless (实例/类型)
+ * <p>
+ * mock 都是 stubOnly 的，不积累调用记录，测出来的只是抛异常本身的开销
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StubbedThrowBenchmark {
+
+    private List<String> thenThrowInstance;
+    private List<String> thenThrowClass;
+    private List<String> stacklessInstance;
+    private List<String> stacklessClass;
+
+    @Setup
+    public void setUp() {
+        thenThrowInstance = stubOnlyList();
+        when(thenThrowInstance.get(1)).thenThrow(new RuntimeException());
+        thenThrowClass = stubOnlyList();
+        when(thenThrowClass.get(1)).thenThrow(RuntimeException.class);
+        stacklessInstance = stubOnlyList();
+        when(stacklessInstance.get(1)).thenAnswer(throwsStackless(new RuntimeException()));
+        stacklessClass = stubOnlyList();
+        when(stacklessClass.get(1)).thenAnswer(throwsStackless(RuntimeException.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> stubOnlyList() {
+        return mock(List.class, withSettings().stubOnly());
+    }
+
+    @Benchmark
+    public Object thenThrowInstance() {
+        return call(thenThrowInstance);
+    }
+
+    @Benchmark
+    public Object thenThrowClass() {
+        return call(thenThrowClass);
+    }
+
+    @Benchmark
+    public Object stacklessInstance() {
+        return call(stacklessInstance);
+    }
+
+    @Benchmark
+    public Object stacklessClass() {
+        return call(stacklessClass);
+    }
+
+    private static Object call(List<String> mock) {
+        try {
+            return mock.get(1);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
@@ -1,7 +1,81 @@
 package wiki.sogou.mockito;
 
+import wiki.sogou.mockito.load.LatencyHistogram;
+import wiki.sogou.mockito.load.LoadRunner;
+import wiki.sogou.mockito.load.Phase;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mock 场景压测入口，不需要完整的测试构建就能在目标机器上测量 mock 的开销
+ * <p>
+ * 用法: Main [--phases create,stub,invoke,verify,spy,reset] [--threads 1] [--duration 10] [--warmup 5]
+ * <br>
+ * duration/warmup 单位为秒，默认执行全部阶段
+ */
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello World");
+    public static void main(String[] args) throws InterruptedException {
+        Set<Phase> phases = EnumSet.allOf(Phase.class);
+        int threads = 1;
+        long duration = 10;
+        long warmup = 5;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--phases":
+                        phases = parsePhases(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--duration":
+                        duration = Long.parseLong(value);
+                        break;
+                    case "--warmup":
+                        warmup = Long.parseLong(value);
+                        break;
+                    default:
+                        usage("Unknown option " + arg);
+                }
+            } catch (NumberFormatException e) {
+                usage("Invalid value for " + arg + ": " + value);
+            }
+        }
+
+        LoadRunner runner = null;
+        try {
+            runner = new LoadRunner(phases, threads, duration, warmup, TimeUnit.SECONDS);
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+        }
+        Map<Phase, LatencyHistogram> histograms = runner.run();
+        runner.report(histograms, System.out);
+    }
+
+    private static Set<Phase> parsePhases(String value) {
+        Set<Phase> phases = EnumSet.noneOf(Phase.class);
+        for (String name : value.split(",")) {
+            try {
+                phases.add(Phase.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                usage("Unknown phase " + name);
+            }
+        }
+        return phases;
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: Main [--phases create,stub,invoke,verify,spy,reset] [--threads N] [--duration SECONDS] [--warmup SECONDS]");
+        System.exit(1);
     }
 }
@@ -0,0 +1,74 @@
+package wiki.sogou.mockito.annotations;
+
+import org.mockito.MockitoAnnotations;
+import org.mockito.exceptions.base.MockitoException;
+
+/**
+ * MockitoAnnotations.openMocks 的替代：测试类有 MockInitProcessor 生成的初始化器时直接调用它，
+ * 否则退回 openMocks
+ * <pre>
+ * &#64;BeforeEach
+ * public void init() {
+ *     FastMocks.openMocks(this);
+ * }
+ * </pre>
+ */
+public final class FastMocks {
+
+    private static final AutoCloseable NOTHING_TO_CLOSE = () -> {
+    };
+
+    private static final ClassValue<MockInitializer<Object>> INITIALIZERS = new ClassValue<MockInitializer<Object>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected MockInitializer<Object> computeValue(Class<?> type) {
+            try {
+                Class<?> generated = Class.forName(initializerName(type), true, type.getClassLoader());
+                return (MockInitializer<Object>) generated.getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new MockitoException("Cannot instantiate mock initializer for " + type.getName(), e);
+            }
+        }
+    };
+
+    private FastMocks() {
+    }
+
+    public static AutoCloseable openMocks(Object testInstance) {
+        MockInitializer<Object> initializer = INITIALIZERS.get(testInstance.getClass());
+        if (initializer == null) {
+            return MockitoAnnotations.openMocks(testInstance);
+        }
+        try {
+            initializer.init(testInstance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new MockitoException("Cannot initialize mocks of " + testInstance.getClass().getName(), e);
+        }
+        return NOTHING_TO_CLOSE;
+    }
+
+    /**
+     * 测试类生成的初始化器，没有时返回 null
+     */
+    static MockInitializer<Object> initializerOf(Class<?> testClass) {
+        return INITIALIZERS.get(testClass);
+    }
+
+    /**
+     * 测试类是否有生成的初始化器
+     */
+    public static boolean isGenerated(Class<?> testClass) {
+        return INITIALIZERS.get(testClass) != null;
+    }
+
+    /**
+     * pkg.Outer$Inner 对应 pkg.Outer_Inner_MockInit
+     */
+    static String initializerName(Class<?> type) {
+        return type.getName().replace('$', '_') + MockInitProcessor.SUFFIX;
+    }
+}
@@ -0,0 +1,327 @@
+package wiki.sogou.mockito.annotations;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译期为带 @Mock/@Spy/@Captor 字段的测试类生成 &lt;测试类&gt;_MockInit 初始化器，运行时由 {@link FastMocks} 调用，
+ * 不再每个测试实例都反射遍历类层次
+ * <p>
+ * 非 private 字段直接赋值，private 字段通过生成类静态初始化时创建的 MethodHandle 赋值。
+ * 有 @InjectMocks 字段、final/static 注解字段、MockedStatic 字段或者测试类不可访问时不生成，FastMocks 退回 openMocks。
+ * 父类也有注解字段时先由 {@link MockInitSupport#initSuperclasses} 初始化父类：调用最近的有生成初始化器的父类的初始化器，
+ * 中间没有初始化器的父类 (没有经过这个处理器编译，或者在别的编译轮次中) 交给 Mockito 逐个类处理
+ */
+@SupportedAnnotationTypes({MockInitProcessor.MOCK, MockInitProcessor.SPY, MockInitProcessor.CAPTOR})
+public class MockInitProcessor extends AbstractProcessor {
+
+    static final String SUFFIX = "_MockInit";
+
+    static final String MOCK = "org.mockito.Mock";
+    static final String SPY = "org.mockito.Spy";
+    static final String CAPTOR = "org.mockito.Captor";
+    private static final String INJECT_MOCKS = "org.mockito.InjectMocks";
+    private static final String MOCKED_STATIC = "org.mockito.MockedStatic";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> testClasses = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD) {
+                    testClasses.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement testClass : testClasses) {
+            String unsupported = unsupported(testClass);
+            if (unsupported != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "No mock initializer generated, falling back to openMocks: " + unsupported, testClass);
+                continue;
+            }
+            try {
+                write(testClass);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write mock initializer: " + e, testClass);
+            }
+        }
+        // 不独占这些注解，其他处理器仍然可以处理
+        return false;
+    }
+
+    /**
+     * 不能生成初始化器的原因，可以生成时返回 null
+     */
+    private String unsupported(TypeElement testClass) {
+        for (Element enclosing = testClass; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            TypeElement type = (TypeElement) enclosing;
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return type.getSimpleName() + " is private";
+            }
+            if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+                return type + " is a local or anonymous class";
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(testClass.getEnclosedElements())) {
+            if (annotation(field, INJECT_MOCKS) != null) {
+                return "@InjectMocks on " + field.getSimpleName();
+            }
+            int count = (annotation(field, MOCK) != null ? 1 : 0) + (annotation(field, SPY) != null ? 1 : 0)
+                    + (annotation(field, CAPTOR) != null ? 1 : 0);
+            if (count == 0) {
+                continue;
+            }
+            if (count > 1) {
+                return field.getSimpleName() + " has more than one Mockito annotation";
+            }
+            if (field.getModifiers().contains(Modifier.FINAL) || field.getModifiers().contains(Modifier.STATIC)) {
+                return field.getSimpleName() + " is final or static";
+            }
+            TypeMirror type = erasure(field);
+            if (type.getKind() != TypeKind.DECLARED || type.toString().equals(MOCKED_STATIC)) {
+                return field.getSimpleName() + " has an unsupported type " + type;
+            }
+        }
+        TypeElement superclass = superclass(testClass);
+        if (superclass != null && hasAnnotatedFields(superclass)) {
+            String unsupported = unsupported(superclass);
+            if (unsupported != null) {
+                return "superclass " + superclass.getSimpleName() + ": " + unsupported;
+            }
+        }
+        return null;
+    }
+
+    private void write(TypeElement testClass) throws IOException {
+        String packageName = packageOf(testClass).getQualifiedName().toString();
+        String simpleName = initializerSimpleName(testClass);
+        String testType = processingEnv.getTypeUtils().erasure(testClass.asType()).toString();
+
+        List<String> handles = new ArrayList<>();
+        List<String> body = new ArrayList<>();
+        TypeElement superclass = superclass(testClass);
+        if (superclass != null && hasAnnotatedFields(superclass)) {
+            body.add("MockInitSupport.initSuperclasses(test, " + testType + ".class);");
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(testClass.getEnclosedElements())) {
+            String value = valueOf(field, testType, handles);
+            if (value == null) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                handles.add("private static final MethodHandle SET_" + name
+                        + " = MockInitSupport.setter(" + testType + ".class, \"" + name + "\");");
+                body.add("SET_" + name + ".invoke(test, " + value + ");");
+            } else {
+                body.add("test." + name + " = " + value + ";");
+            }
+        }
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, testClass).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import java.lang.invoke.MethodHandle;");
+            out.println("import wiki.sogou.mockito.annotations.MockInitSupport;");
+            out.println("import wiki.sogou.mockito.annotations.MockInitializer;");
+            out.println();
+            out.println("/**");
+            out.println(" * Generated by " + MockInitProcessor.class.getName() + " for " + testType);
+            out.println(" */");
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + simpleName + " implements MockInitializer<" + testType + "> {");
+            out.println();
+            for (String handle : handles) {
+                out.println("    " + handle);
+            }
+            if (!handles.isEmpty()) {
+                out.println();
+            }
+            out.println("    @Override");
+            out.println("    public void init(" + testType + " test) throws Throwable {");
+            for (String statement : body) {
+                out.println("        " + statement);
+            }
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * 字段要赋的值的表达式，字段没有注解时返回 null
+     */
+    private String valueOf(VariableElement field, String testType, List<String> handles) {
+        String name = field.getSimpleName().toString();
+        String type = erasure(field).toString();
+        AnnotationMirror mock = annotation(field, MOCK);
+        if (mock != null) {
+            return "(" + type + ") org.mockito.Mockito.mock(" + type + ".class, " + mockSettings(mock, name) + ")";
+        }
+        if (annotation(field, SPY) != null) {
+            String current;
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                handles.add("private static final MethodHandle GET_" + name
+                        + " = MockInitSupport.getter(" + testType + ".class, \"" + name + "\");");
+                current = "(" + type + ") GET_" + name + ".invoke(test)";
+            } else {
+                current = "test." + name;
+            }
+            return "MockInitSupport.spy(test, " + type + ".class, " + current + ", " + literal(name) + ")";
+        }
+        if (annotation(field, CAPTOR) != null) {
+            return "(org.mockito.ArgumentCaptor) org.mockito.ArgumentCaptor.forClass(" + captured(field) + ".class)";
+        }
+        return null;
+    }
+
+    /**
+     * 与 Mockito 处理 @Mock 时的设置相同
+     */
+    private String mockSettings(AnnotationMirror mock, String fieldName) {
+        StringBuilder settings = new StringBuilder("org.mockito.Mockito.withSettings()");
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mock);
+        String name = fieldName;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            String key = entry.getKey().getSimpleName().toString();
+            Object value = entry.getValue().getValue();
+            switch (key) {
+                case "name":
+                    if (!value.toString().isEmpty()) {
+                        name = value.toString();
+                    }
+                    break;
+                case "answer":
+                    settings.append(".defaultAnswer(org.mockito.Answers.").append(value).append(")");
+                    break;
+                case "extraInterfaces":
+                    List<?> interfaces = (List<?>) value;
+                    if (!interfaces.isEmpty()) {
+                        List<String> classes = new ArrayList<>();
+                        for (Object extra : interfaces) {
+                            TypeMirror extraType = (TypeMirror) ((AnnotationValue) extra).getValue();
+                            classes.add(processingEnv.getTypeUtils().erasure(extraType) + ".class");
+                        }
+                        settings.append(".extraInterfaces(").append(String.join(", ", classes)).append(")");
+                    }
+                    break;
+                case "serializable":
+                case "stubOnly":
+                case "lenient":
+                    if (Boolean.TRUE.equals(value)) {
+                        settings.append(".").append(key).append("()");
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return settings.append(".name(").append(literal(name)).append(")").toString();
+    }
+
+    /**
+     * 字符串的 Java 字面量，引号、反斜杠和换行都已转义
+     */
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    /**
+     * ArgumentCaptor&lt;X&gt; 的 X，原始类型时为 Object
+     */
+    private String captured(VariableElement field) {
+        TypeMirror type = field.asType();
+        if (type instanceof DeclaredType && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            TypeMirror argument = ((DeclaredType) type).getTypeArguments().get(0);
+            if (argument.getKind() == TypeKind.DECLARED) {
+                return processingEnv.getTypeUtils().erasure(argument).toString();
+            }
+        }
+        return "Object";
+    }
+
+    private boolean hasAnnotatedFields(TypeElement type) {
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (annotation(field, MOCK) != null || annotation(field, SPY) != null || annotation(field, CAPTOR) != null) {
+                return true;
+            }
+        }
+        TypeElement superclass = superclass(type);
+        return superclass != null && hasAnnotatedFields(superclass);
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private TypeMirror erasure(VariableElement field) {
+        return processingEnv.getTypeUtils().erasure(field.asType());
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    /**
+     * Outer.Inner 对应 Outer_Inner_MockInit，与 FastMocks 按二进制名推出的类名一致
+     */
+    private static String initializerSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append(SUFFIX).toString();
+    }
+}
@@ -0,0 +1,140 @@
+package wiki.sogou.mockito.annotations;
+
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.exceptions.base.MockitoException;
+import org.mockito.internal.configuration.IndependentAnnotationEngine;
+import org.mockito.internal.configuration.SpyAnnotationEngine;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 生成的初始化器用到的辅助方法
+ * <p>
+ * private 字段的读写句柄在生成类的静态初始化中创建，每个测试类只反射一次，之后每个测试实例都直接调用句柄
+ */
+public final class MockInitSupport {
+
+    private static final IndependentAnnotationEngine MOCK_ENGINE = new IndependentAnnotationEngine();
+
+    private static final SpyAnnotationEngine SPY_ENGINE = new SpyAnnotationEngine();
+
+    private static final ClassValue<SuperclassPlan> SUPERCLASS_PLANS = new ClassValue<SuperclassPlan>() {
+        @Override
+        protected SuperclassPlan computeValue(Class<?> testClass) {
+            return SuperclassPlan.of(testClass);
+        }
+    };
+
+    private MockInitSupport() {
+    }
+
+    /**
+     * 初始化 testClass 所有父类的注解字段：最近的有生成初始化器的父类调用它的初始化器，由它负责更上层的父类；
+     * 这之间没有初始化器但有注解字段的父类用 Mockito 的注解引擎逐个类处理
+     */
+    public static void initSuperclasses(Object test, Class<?> testClass) throws Throwable {
+        SuperclassPlan plan = SUPERCLASS_PLANS.get(testClass);
+        if (plan.initializer != null) {
+            plan.initializer.init(test);
+        }
+        for (Class<?> type : plan.withoutInitializer) {
+            MOCK_ENGINE.process(type, test);
+            SPY_ENGINE.process(type, test);
+        }
+    }
+
+    public static MethodHandle setter(Class<?> type, String fieldName) {
+        try {
+            return MethodHandles.lookup().unreflectSetter(accessible(type, fieldName));
+        } catch (IllegalAccessException e) {
+            throw new MockitoException("Cannot access field " + type.getName() + "." + fieldName, e);
+        }
+    }
+
+    public static MethodHandle getter(Class<?> type, String fieldName) {
+        try {
+            return MethodHandles.lookup().unreflectGetter(accessible(type, fieldName));
+        } catch (IllegalAccessException e) {
+            throw new MockitoException("Cannot access field " + type.getName() + "." + fieldName, e);
+        }
+    }
+
+    private static Field accessible(Class<?> type, String fieldName) {
+        try {
+            Field field = type.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new MockitoException("Field " + fieldName + " not found in " + type.getName()
+                    + ", the generated initializer is out of date", e);
+        }
+    }
+
+    /**
+     * 与 Mockito 处理 @Spy 字段的方式相同：字段已有值时 spy 这个值，否则用无参构造器创建，
+     * 非静态内部类以测试实例作为外部实例
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T spy(Object test, Class<T> type, T instance, String name) {
+        if (instance != null) {
+            return Mockito.mock((Class<T>) instance.getClass(), withSettings()
+                    .spiedInstance(instance).defaultAnswer(Mockito.CALLS_REAL_METHODS).name(name));
+        }
+        MockSettings settings = withSettings().useConstructor().defaultAnswer(Mockito.CALLS_REAL_METHODS).name(name);
+        if (type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+            if (!type.getEnclosingClass().isInstance(test)) {
+                throw new MockitoException("@Spy annotation can only initialize inner classes declared in the test: "
+                        + type.getName());
+            }
+            settings.outerInstance(test);
+        }
+        return Mockito.mock(type, settings);
+    }
+
+    private static final class SuperclassPlan {
+
+        private final MockInitializer<Object> initializer;
+        private final List<Class<?>> withoutInitializer;
+
+        private SuperclassPlan(MockInitializer<Object> initializer, List<Class<?>> withoutInitializer) {
+            this.initializer = initializer;
+            this.withoutInitializer = withoutInitializer;
+        }
+
+        static SuperclassPlan of(Class<?> testClass) {
+            List<Class<?>> withoutInitializer = new ArrayList<>();
+            for (Class<?> type = testClass.getSuperclass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                MockInitializer<Object> initializer = FastMocks.initializerOf(type);
+                if (initializer != null) {
+                    return new SuperclassPlan(initializer, withoutInitializer);
+                }
+                if (hasAnnotatedFields(type)) {
+                    withoutInitializer.add(type);
+                }
+            }
+            return new SuperclassPlan(null, withoutInitializer.isEmpty() ? Collections.emptyList() : withoutInitializer);
+        }
+
+        private static boolean hasAnnotatedFields(Class<?> type) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Mock.class) || field.isAnnotationPresent(Spy.class)
+                        || field.isAnnotationPresent(Captor.class)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
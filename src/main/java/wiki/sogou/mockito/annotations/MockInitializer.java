@@ -0,0 +1,9 @@
+package wiki.sogou.mockito.annotations;
+
+/**
+ * MockInitProcessor 为每个测试类生成的初始化器，直接给 @Mock/@Spy/@Captor 字段赋值
+ */
+public interface MockInitializer<T> {
+
+    void init(T testInstance) throws Throwable;
+}
@@ -0,0 +1,94 @@
+package wiki.sogou.mockito.answers;
+
+import org.mockito.Mockito;
+import org.mockito.internal.stubbing.defaultanswers.ReturnsMoreEmptyValues;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 与 RETURNS_SMART_NULLS 相同，但 smart null 按 mock 的方法缓存
+ * <p>
+ * RETURNS_SMART_NULLS 每次未打桩的调用都会创建一个新的 smart null mock；这里每个 mock 的每个方法只创建一次，
+ * 之后的调用直接返回同一个实例，成本接近返回常量。代价是 smart null 报错时指向的是该方法第一次未打桩调用的位置
+ * <p>
+ * 缓存属于 {@link #cachedSmartNulls()} 返回的 Answer，随 mock 一起回收，不同的 mock 和不同的测试之间不共享 smart null。
+ * 一个 Answer 只为第一个调用它的 mock 缓存，用在其它 mock 上时与 RETURNS_SMART_NULLS 相同；
+ * 返回类型是方法自己的类型参数 (如 {@code <T> T get(Class<T>)}) 时具体类型取决于参数，也不缓存
+ * <pre>
+ * List mock = mock(List.class, CachedSmartNulls.cachedSmartNulls());
+ * </pre>
+ */
+public final class CachedSmartNulls implements Answer<Object> {
+
+    private static final Answer<Object> EMPTY_VALUES = new ReturnsMoreEmptyValues();
+
+    /**
+     * 无法 mock 的返回类型 (final 类等) 用这个占位，避免反复尝试
+     */
+    private static final Object NOT_MOCKABLE = new Object();
+
+    private final Map<Method, Object> smartNulls = new ConcurrentHashMap<>();
+
+    private volatile WeakReference<Object> owner;
+
+    private CachedSmartNulls() {
+    }
+
+    /**
+     * 返回一个新的 Answer，每个 mock 用自己的一个
+     */
+    public static Answer<Object> cachedSmartNulls() {
+        return new CachedSmartNulls();
+    }
+
+    @Override
+    public Object answer(InvocationOnMock invocation) throws Throwable {
+        Object emptyValue = EMPTY_VALUES.answer(invocation);
+        if (emptyValue != null) {
+            return emptyValue;
+        }
+        Method method = invocation.getMethod();
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        if (!isOwner(invocation.getMock()) || dependsOnArguments(method.getGenericReturnType())) {
+            return Mockito.RETURNS_SMART_NULLS.answer(invocation);
+        }
+        Object smartNull = smartNulls.get(method);
+        if (smartNull == null) {
+            Object created = Mockito.RETURNS_SMART_NULLS.answer(invocation);
+            Object previous = smartNulls.putIfAbsent(method, created == null ? NOT_MOCKABLE : created);
+            smartNull = previous == null ? created : previous;
+        }
+        return smartNull == NOT_MOCKABLE ? null : smartNull;
+    }
+
+    private boolean isOwner(Object mock) {
+        WeakReference<Object> current = owner;
+        if (current == null) {
+            synchronized (this) {
+                if (owner == null) {
+                    owner = new WeakReference<>(mock);
+                }
+                current = owner;
+            }
+        }
+        return current.get() == mock;
+    }
+
+    /**
+     * 返回类型是方法声明的类型参数时，Mockito 根据参数推断 smart null 的类型
+     */
+    private static boolean dependsOnArguments(Type returnType) {
+        return returnType instanceof TypeVariable
+                && ((TypeVariable<?>) returnType).getGenericDeclaration() instanceof Method;
+    }
+}
@@ -0,0 +1,82 @@
+package wiki.sogou.mockito.answers;
+
+import org.mockito.exceptions.base.MockitoException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.stubbing.ValidableAnswer;
+
+/**
+ * 抛出预先创建、可重复使用的异常的 Answer，代替 thenThrow/doThrow
+ * <p>
+ * Mockito 的 thenThrow 每次抛出前都会调用 fillInStackTrace 并过滤栈，失败路径上大量抛异常的测试主要耗在这里；
+ * 这里的异常只创建一次，栈在创建时清空，之后每次直接抛出同一个实例
+ * <pre>
+ * when(mockedList.get(1)).thenAnswer(throwsStackless(new RuntimeException()));
+ * doAnswer(throwsStackless(RuntimeException.class)).when(mockedList).clear();
+ * </pre>
+ * 异常实例是共享的，捕获后不要修改它 (比如 addSuppressed)；需要完整栈排查问题时换回 thenThrow
+ */
+public final class StacklessAnswers {
+
+    private static final StackTraceElement[] NO_STACK = new StackTraceElement[0];
+
+    private StacklessAnswers() {
+    }
+
+    public static Answer<Object> throwsStackless(Throwable throwable) {
+        if (throwable == null) {
+            throw new MockitoException("Cannot stub with null throwable!");
+        }
+        throwable.setStackTrace(NO_STACK);
+        return new ThrowsStackless(throwable);
+    }
+
+    /**
+     * 用异常类型的无参构造器创建一次，之后每次抛出同一个实例
+     */
+    public static Answer<Object> throwsStackless(Class<? extends Throwable> throwableType) {
+        try {
+            return throwsStackless(throwableType.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new MockitoException("Cannot instantiate " + throwableType.getName()
+                    + " with a no-arg constructor, create the exception and use throwsStackless(Throwable) instead", e);
+        }
+    }
+
+    /**
+     * 不可能带栈的 StacklessException
+     */
+    public static Answer<Object> throwsStackless(String message) {
+        return new ThrowsStackless(new StacklessException(message));
+    }
+
+    /**
+     * 与 thenThrow 相同，打桩时校验受检异常必须在方法签名中声明
+     */
+    private static final class ThrowsStackless implements Answer<Object>, ValidableAnswer {
+
+        private final Throwable throwable;
+
+        ThrowsStackless(Throwable throwable) {
+            this.throwable = throwable;
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            throw throwable;
+        }
+
+        @Override
+        public void validateFor(InvocationOnMock invocation) {
+            if (throwable instanceof RuntimeException || throwable instanceof Error) {
+                return;
+            }
+            for (Class<?> declared : invocation.getMethod().getExceptionTypes()) {
+                if (declared.isInstance(throwable)) {
+                    return;
+                }
+            }
+            throw new MockitoException("Checked exception is invalid for this method!\nInvalid: " + throwable);
+        }
+    }
+}
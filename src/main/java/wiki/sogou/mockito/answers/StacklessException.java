@@ -0,0 +1,13 @@
+package wiki.sogou.mockito.answers;
+
+/**
+ * 不记录栈、不记录 suppressed 异常的 RuntimeException，可以预先创建后反复抛出
+ */
+public class StacklessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StacklessException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,137 @@
+package wiki.sogou.mockito.captor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 捕获值的聚合结果，占用的内存与捕获次数无关
+ * <p>
+ * 最大最小值只对实现了 Comparable 的值统计，不同值个数用 HyperLogLog 估计，误差约 1.6%
+ */
+public class Aggregates<T> implements Consumer<T> {
+
+    private final Object[] last;
+    private final HyperLogLog distinct = new HyperLogLog();
+    private long count;
+    private long nulls;
+    private T min;
+    private T max;
+
+    public Aggregates(int lastN) {
+        if (lastN < 0) {
+            throw new IllegalArgumentException("lastN must not be negative: " + lastN);
+        }
+        this.last = new Object[lastN];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void accept(T value) {
+        if (last.length > 0) {
+            last[(int) (count % last.length)] = value;
+        }
+        count++;
+        if (value == null) {
+            nulls++;
+            return;
+        }
+        distinct.add(value.hashCode());
+        if (value instanceof Comparable) {
+            Comparable<Object> comparable = (Comparable<Object>) value;
+            if (min == null || comparable.compareTo(min) < 0) {
+                min = value;
+            }
+            if (max == null || comparable.compareTo(max) > 0) {
+                max = value;
+            }
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getNullCount() {
+        return nulls;
+    }
+
+    /**
+     * 没有可比较的值时为 null
+     */
+    public synchronized T getMin() {
+        return min;
+    }
+
+    public synchronized T getMax() {
+        return max;
+    }
+
+    /**
+     * 不同的非 null 值个数的估计，按 hashCode 区分
+     */
+    public synchronized long getDistinctEstimate() {
+        return distinct.estimate();
+    }
+
+    /**
+     * 最近捕获的最多 lastN 个值，按捕获顺序排列
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> getLast() {
+        int size = (int) Math.min(count, last.length);
+        List<T> values = new ArrayList<>(size);
+        for (long i = count - size; i < count; i++) {
+            values.add((T) last[(int) (i % last.length)]);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * 4096 个寄存器的 HyperLogLog
+     */
+    static final class HyperLogLog {
+
+        private static final int P = 12;
+        private static final int M = 1 << P;
+
+        private final byte[] registers = new byte[M];
+
+        void add(int hashCode) {
+            long hash = mix(hashCode);
+            int index = (int) (hash >>> (64 - P));
+            int rank = Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1;
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / M);
+            double estimate = alpha * M * M / sum;
+            if (estimate <= 2.5 * M && zeros > 0) {
+                estimate = M * Math.log((double) M / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        /**
+         * hashCode 通常分布不均匀，先做一次 64 位混合 (SplitMix64 的 finalizer)
+         */
+        private static long mix(long value) {
+            long z = value * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
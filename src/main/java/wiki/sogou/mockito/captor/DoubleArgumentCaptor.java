@@ -0,0 +1,54 @@
+package wiki.sogou.mockito.captor;
+
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+
+/**
+ * 捕获 double 参数的 captor，值保存在可增长的 double[] 中，不装箱成 List&lt;Object&gt;
+ * <pre>
+ * DoubleArgumentCaptor captor = new DoubleArgumentCaptor();
+ * verify(mockedList, atLeastOnce()).get(captor.capture());
+ * captor.stream().sum();
+ * </pre>
+ */
+public class DoubleArgumentCaptor extends PrimitiveArgumentCaptor<Double, double[]> {
+
+    public DoubleArgumentCaptor() {
+        super(double[]::new);
+    }
+
+    /**
+     * 在验证或打桩时代替实参使用，返回 0
+     */
+    public double capture() {
+        return Mockito.doubleThat(this);
+    }
+
+    /**
+     * 最后一次捕获的值
+     */
+    public synchronized double getValue() {
+        return values()[lastIndex()];
+    }
+
+    public DoubleStream stream() {
+        return Arrays.stream(getAllValues());
+    }
+
+    @Override
+    public boolean matches(Double argument) {
+        return argument != null;
+    }
+
+    @Override
+    void store(double[] values, int index, Object argument) {
+        values[index] = (Double) argument;
+    }
+
+    @Override
+    public String toString() {
+        return "<Capturing double argument>";
+    }
+}
@@ -0,0 +1,54 @@
+package wiki.sogou.mockito.captor;
+
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 捕获 int 参数的 captor，值保存在可增长的 int[] 中，不装箱成 List&lt;Object&gt;
+ * <pre>
+ * IntArgumentCaptor captor = new IntArgumentCaptor();
+ * verify(mockedList, atLeastOnce()).get(captor.capture());
+ * captor.stream().sum();
+ * </pre>
+ */
+public class IntArgumentCaptor extends PrimitiveArgumentCaptor<Integer, int[]> {
+
+    public IntArgumentCaptor() {
+        super(int[]::new);
+    }
+
+    /**
+     * 在验证或打桩时代替实参使用，返回 0
+     */
+    public int capture() {
+        return Mockito.intThat(this);
+    }
+
+    /**
+     * 最后一次捕获的值
+     */
+    public synchronized int getValue() {
+        return values()[lastIndex()];
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(getAllValues());
+    }
+
+    @Override
+    public boolean matches(Integer argument) {
+        return argument != null;
+    }
+
+    @Override
+    void store(int[] values, int index, Object argument) {
+        values[index] = (Integer) argument;
+    }
+
+    @Override
+    public String toString() {
+        return "<Capturing int argument>";
+    }
+}
@@ -0,0 +1,54 @@
+package wiki.sogou.mockito.captor;
+
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * 捕获 long 参数的 captor，值保存在可增长的 long[] 中，不装箱成 List&lt;Object&gt;
+ * <pre>
+ * LongArgumentCaptor captor = new LongArgumentCaptor();
+ * verify(mockedList, atLeastOnce()).get(captor.capture());
+ * captor.stream().sum();
+ * </pre>
+ */
+public class LongArgumentCaptor extends PrimitiveArgumentCaptor<Long, long[]> {
+
+    public LongArgumentCaptor() {
+        super(long[]::new);
+    }
+
+    /**
+     * 在验证或打桩时代替实参使用，返回 0
+     */
+    public long capture() {
+        return Mockito.longThat(this);
+    }
+
+    /**
+     * 最后一次捕获的值
+     */
+    public synchronized long getValue() {
+        return values()[lastIndex()];
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(getAllValues());
+    }
+
+    @Override
+    public boolean matches(Long argument) {
+        return argument != null;
+    }
+
+    @Override
+    void store(long[] values, int index, Object argument) {
+        values[index] = (Long) argument;
+    }
+
+    @Override
+    public String toString() {
+        return "<Capturing long argument>";
+    }
+}
@@ -0,0 +1,71 @@
+package wiki.sogou.mockito.captor;
+
+import org.mockito.ArgumentMatcher;
+import org.mockito.exceptions.base.MockitoException;
+import org.mockito.internal.matchers.CapturesArguments;
+
+import java.util.function.IntFunction;
+
+/**
+ * Int/Long/DoubleArgumentCaptor 共用的部分：捕获的值保存在可增长的基本类型数组 A 中，子类只负责把实参拆箱写入数组
+ * <p>
+ * matches 留在子类里：Mockito 按 matcher 类上非桥接的 matches 方法的参数类型检查实参类型，
+ * 写在这个包私有的父类里只会在子类中留下桥接方法
+ */
+abstract class PrimitiveArgumentCaptor<T, A> implements ArgumentMatcher<T>, CapturesArguments {
+
+    private final IntFunction<A> newArray;
+    private A values;
+    private int capacity = 16;
+    private int size;
+
+    PrimitiveArgumentCaptor(IntFunction<A> newArray) {
+        this.newArray = newArray;
+        this.values = newArray.apply(capacity);
+    }
+
+    /**
+     * 把实参拆箱写入 values[index]
+     */
+    abstract void store(A values, int index, Object argument);
+
+    /**
+     * 最后一次捕获的值在 values() 中的下标，调用方需要持有 this 的锁
+     */
+    final int lastIndex() {
+        if (size == 0) {
+            throw new MockitoException("No argument value was captured!");
+        }
+        return size - 1;
+    }
+
+    /**
+     * 保存值的数组，长度可能大于 size()，调用方需要持有 this 的锁
+     */
+    final A values() {
+        return values;
+    }
+
+    public synchronized A getAllValues() {
+        return copy(size);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void captureFrom(Object argument) {
+        if (size == capacity) {
+            capacity = size * 2;
+            values = copy(capacity);
+        }
+        store(values, size++, argument);
+    }
+
+    private A copy(int length) {
+        A copy = newArray.apply(length);
+        System.arraycopy(values, 0, copy, 0, size);
+        return copy;
+    }
+}
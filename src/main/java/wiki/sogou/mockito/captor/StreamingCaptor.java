@@ -0,0 +1,75 @@
+package wiki.sogou.mockito.captor;
+
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.mockito.internal.matchers.CapturesArguments;
+
+import java.util.function.Consumer;
+
+/**
+ * 不保存实参的 ArgumentCaptor：每个被捕获的值直接交给 Consumer，或者只保留聚合结果
+ * <pre>
+ * StreamingCaptor&lt;List&gt; captor = StreamingCaptor.aggregating(10);
+ * verify(mock, atLeastOnce()).add(captor.capture());
+ * captor.getAggregates().getCount();
+ * </pre>
+ * 与 ArgumentCaptor 一样实现 Mockito 的 CapturesArguments，只有真正匹配的调用 (验证通过或打桩命中) 才会被捕获
+ */
+public class StreamingCaptor<T> implements ArgumentMatcher<T>, CapturesArguments {
+
+    private final Consumer<? super T> sink;
+    private final Aggregates<T> aggregates;
+
+    private StreamingCaptor(Consumer<? super T> sink, Aggregates<T> aggregates) {
+        this.sink = sink;
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * 每个捕获的值交给 sink，不做任何保存
+     */
+    public static <T> StreamingCaptor<T> streaming(Consumer<? super T> sink) {
+        return new StreamingCaptor<>(sink, null);
+    }
+
+    /**
+     * 只保留数量、最大最小值、不同值个数的估计和最近 lastN 个值
+     */
+    public static <T> StreamingCaptor<T> aggregating(int lastN) {
+        Aggregates<T> aggregates = new Aggregates<>(lastN);
+        return new StreamingCaptor<>(aggregates, aggregates);
+    }
+
+    /**
+     * 在验证或打桩时代替实参使用，与 ArgumentCaptor.capture() 相同，返回 null
+     */
+    public T capture() {
+        return Mockito.argThat(this);
+    }
+
+    /**
+     * 只有 aggregating() 创建的 captor 有聚合结果
+     */
+    public Aggregates<T> getAggregates() {
+        if (aggregates == null) {
+            throw new IllegalStateException("Captor was not created with StreamingCaptor.aggregating()");
+        }
+        return aggregates;
+    }
+
+    @Override
+    public boolean matches(T argument) {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void captureFrom(Object argument) {
+        sink.accept((T) argument);
+    }
+
+    @Override
+    public String toString() {
+        return "<Capturing argument>";
+    }
+}
@@ -0,0 +1,84 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.invocation.Invocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 按线程分段的调用记录：每个线程写自己的缓冲区，只有读取调用列表时才把所有缓冲区按调用顺序合并
+ * <p>
+ * 与 RecordingInvocationContainer 一起，调用 mock 的路径上不再有锁：不写 Mockito 加锁的调用列表，
+ * 查找打桩读的是快照，调用顺序用 Mockito 本来就给每个 Invocation 分配的序号，不再另外维护共享的计数器。
+ * 剩下的共享写入是 Mockito 分配这个序号的全局 AtomicInteger。
+ * 和 Mockito 一样，验证应该在调用的线程结束 (join) 之后进行
+ */
+public class ConcurrentInvocationLog implements InvocationStore {
+
+    private static final Comparator<Invocation> CALL_ORDER = Comparator.comparingInt(Invocation::getSequenceNumber);
+
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> local = ThreadLocal.withInitial(() -> {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    @Override
+    public void record(Invocation invocation) {
+        local.get().add(invocation);
+    }
+
+    /**
+     * 合并所有线程的记录，按调用顺序返回
+     */
+    @Override
+    public List<Invocation> getInvocations() {
+        List<Invocation> invocations = new ArrayList<>();
+        for (Buffer buffer : buffers) {
+            buffer.copyTo(invocations);
+        }
+        invocations.sort(CALL_ORDER);
+        return Collections.unmodifiableList(invocations);
+    }
+
+    @Override
+    public void clear() {
+        for (Buffer buffer : buffers) {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 只由一个线程写入。先写数组再写 volatile 的 size，读线程先读 size 就能看到完整的数组
+     */
+    private static final class Buffer {
+
+        private Invocation[] invocations = new Invocation[16];
+        private volatile int size;
+
+        void add(Invocation invocation) {
+            int n = size;
+            if (n == invocations.length) {
+                invocations = Arrays.copyOf(invocations, n * 2);
+            }
+            invocations[n] = invocation;
+            size = n + 1;
+        }
+
+        void copyTo(List<Invocation> target) {
+            int n = size;
+            target.addAll(Arrays.asList(invocations).subList(0, n));
+        }
+
+        void clear() {
+            size = 0;
+            invocations = new Invocation[16];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.exceptions.verification.NeverWantedButInvoked;
+import org.mockito.exceptions.verification.TooFewActualInvocations;
+import org.mockito.exceptions.verification.TooManyActualInvocations;
+import org.mockito.exceptions.verification.WantedButNotInvoked;
+
+/**
+ * 计数模式下的验证方式，对应 Mockito 的 times/never/atLeast/atMost
+ */
+public final class CountMode {
+
+    private final long min;
+    private final long max;
+    private final String description;
+
+    private CountMode(long min, long max, String description) {
+        this.min = min;
+        this.max = max;
+        this.description = description;
+    }
+
+    static CountMode between(long min, long max, String description) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid invocation count range: " + description);
+        }
+        return new CountMode(min, max, description);
+    }
+
+    void check(long actual, String wanted) {
+        if (actual >= min && actual <= max) {
+            return;
+        }
+        String message = "\n" + wanted + "\nWanted " + description + " but was " + actual + " time(s)";
+        if (max == 0) {
+            throw new NeverWantedButInvoked(message);
+        }
+        if (actual == 0) {
+            throw new WantedButNotInvoked(message);
+        }
+        if (actual < min) {
+            throw new TooFewActualInvocations(message);
+        }
+        throw new TooManyActualInvocations(message);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,27 @@
+package wiki.sogou.mockito.counting;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * 能按方法和实参给出调用次数的调用记录，{@link CountingMocks#verifyCount} 基于它验证
+ */
+public interface CountedInvocations {
+
+    long count(Method method, Object[] arguments);
+
+    /**
+     * 与 count 相同，同时把这些调用标记为已验证
+     */
+    long verify(Method method, Object[] arguments);
+
+    /**
+     * 未验证的调用的描述，最多 limit 条，为空表示所有调用都已验证
+     */
+    List<String> unverified(int limit);
+
+    /**
+     * 所有调用的总数
+     */
+    long total();
+}
@@ -0,0 +1,131 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+import org.mockito.exceptions.misusing.NotAMockException;
+import org.mockito.exceptions.verification.NoInteractionsWanted;
+import org.mockito.listeners.InvocationListener;
+import org.mockito.mock.MockCreationSettings;
+import wiki.sogou.mockito.util.Recorder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 只计数和并发记录的 mock：替换的只是 mock 保存调用的方式，验证仍然用 Mockito 自己的 verify
+ * <pre>
+ * LinkedList&lt;String&gt; mockedList = mock(LinkedList.class, withCounting());
+ * mockedList.add("twice");
+ * mockedList.add("twice");
+ * verify(mockedList, times(2)).add("twice");
+ * </pre>
+ * 需要 SogouMockMaker 作为 MockMaker，它在创建和 reset mock 时换上 RecordingInvocationContainer；
+ * 换成别的 MockMaker 时这些设置退化为普通的完整记录。两种模式都与 Mockito 一样不记录打桩时对 mock 的调用。
+ * <p>
+ * verifyCount 系列方法用于调用记录实现了 CountedInvocations 的 mock (MockPool 的 mock)
+ */
+public final class CountingMocks {
+
+    /**
+     * 验证失败时最多列出的未验证调用数
+     */
+    private static final int REPORTED_UNVERIFIED = 10;
+
+    private CountingMocks() {
+    }
+
+    /**
+     * 计数模式的 mock 设置：相等实参的调用只计数，由 InvocationCounter 记录
+     */
+    public static MockSettings withCounting() {
+        return withSettings().verificationStartedListeners(new RecordingMode(InvocationCounter::new));
+    }
+
+    /**
+     * 并发记录模式的 mock 设置：调用路径上没有锁，由 ConcurrentInvocationLog 按线程分段记录
+     */
+    public static MockSettings withConcurrentLog() {
+        return withSettings().verificationStartedListeners(new RecordingMode(ConcurrentInvocationLog::new));
+    }
+
+    public static CountedInvocations counterOf(Object mock) {
+        MockCreationSettings<?> settings = Mockito.mockingDetails(mock).getMockCreationSettings();
+        for (InvocationListener listener : settings.getInvocationListeners()) {
+            if (listener instanceof CountedInvocations) {
+                return (CountedInvocations) listener;
+            }
+        }
+        throw new NotAMockException("Mock does not record CountedInvocations: " + mock);
+    }
+
+    public static <T> T verifyCount(T mock) {
+        return verifyCount(mock, times(1));
+    }
+
+    /**
+     * 返回一个与 mock 同类型的记录器，在记录器上调用要验证的方法和实参
+     */
+    public static <T> T verifyCount(T mock, CountMode mode) {
+        CountedInvocations counter = counterOf(mock);
+        return Recorder.record(mock, invocation -> {
+            long actual = counter.count(invocation.getMethod(), invocation.getArguments());
+            mode.check(actual, invocation.getMethod().getName() + Arrays.toString(invocation.getArguments()));
+            // 验证失败的调用仍然算作未验证
+            counter.verify(invocation.getMethod(), invocation.getArguments());
+        });
+    }
+
+    /**
+     * 对应 Mockito.verifyNoMoreInteractions，所有记录的调用都必须已经被 verifyCount 验证过
+     */
+    public static void verifyNoMoreCountedInteractions(Object... mocks) {
+        for (Object mock : mocks) {
+            List<String> unverified = counterOf(mock).unverified(REPORTED_UNVERIFIED);
+            if (!unverified.isEmpty()) {
+                throw new NoInteractionsWanted("\nNo interactions wanted here but found unverified invocations on "
+                        + Mockito.mockingDetails(mock).getMockCreationSettings().getTypeToMock().getSimpleName()
+                        + ":\n" + String.join("\n", unverified));
+            }
+        }
+    }
+
+    /**
+     * 对应 Mockito.verifyNoInteractions
+     */
+    public static void verifyNoCountedInteractions(Object... mocks) {
+        for (Object mock : mocks) {
+            long total = counterOf(mock).total();
+            if (total > 0) {
+                throw new NoInteractionsWanted("\nNo interactions wanted here but found " + total + " invocation(s) on "
+                        + Mockito.mockingDetails(mock).getMockCreationSettings().getTypeToMock().getSimpleName());
+            }
+        }
+    }
+
+    public static CountMode times(int wantedNumberOfInvocations) {
+        return CountMode.between(wantedNumberOfInvocations, wantedNumberOfInvocations,
+                wantedNumberOfInvocations + " time(s)");
+    }
+
+    public static CountMode never() {
+        return CountMode.between(0, 0, "never");
+    }
+
+    public static CountMode atLeastOnce() {
+        return atLeast(1);
+    }
+
+    public static CountMode atLeast(int minNumberOfInvocations) {
+        return CountMode.between(minNumberOfInvocations, Long.MAX_VALUE, "at least " + minNumberOfInvocations + " time(s)");
+    }
+
+    public static CountMode atMostOnce() {
+        return atMost(1);
+    }
+
+    public static CountMode atMost(int maxNumberOfInvocations) {
+        return CountMode.between(0, maxNumberOfInvocations, "at most " + maxNumberOfInvocations + " time(s)");
+    }
+}
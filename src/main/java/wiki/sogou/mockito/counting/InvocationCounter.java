@@ -0,0 +1,124 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.invocation.Invocation;
+import wiki.sogou.mockito.util.ArgumentsKey;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只计数的调用记录：每个 (方法, 相等的实参) 对应一个计数器，只保留最近一次调用的 Invocation
+ * <p>
+ * 调用再多，保留的内存也只和不同实参的个数有关。交给 Mockito 验证的调用列表是按计数重复的 Invocation：
+ * 实参相等的调用由同一个 Invocation 代表，调用之间的先后顺序不保留，所以 times/never/atLeast/atMost、
+ * verifyNoMoreInteractions 和 ArgumentCaptor 与完整记录的结果相同，inOrder 和按对象同一性匹配的 matcher 则不适用。
+ * 验证时 Mockito 会把匹配的调用复制到临时列表里，这部分内存随调用次数增长，只在验证期间存在
+ */
+public class InvocationCounter implements InvocationStore {
+
+    private final Map<ArgumentsKey, Counter> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(Invocation invocation) {
+        Counter counter = counts.computeIfAbsent(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()),
+                key -> new Counter());
+        counter.latest = invocation;
+        counter.count.increment();
+    }
+
+    @Override
+    public List<Invocation> getInvocations() {
+        List<Invocation> representatives = new ArrayList<>();
+        List<Long> ends = new ArrayList<>();
+        long size = 0;
+        for (Counter counter : counts.values()) {
+            synchronized (counter) {
+                size = counter.list(representatives, ends, size);
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many invocations to verify: " + size);
+        }
+        return new RepeatedInvocations(representatives.toArray(new Invocation[0]),
+                ends.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Override
+    public void clear() {
+        counts.clear();
+    }
+
+    /**
+     * count 和 latest 由调用线程写入，其余字段只在列出调用时读写
+     * <p>
+     * Mockito 验证通过时把列出的 Invocation 标记为已验证，下一次列出时据此把列出时的计数记为已验证，
+     * 之后新增的调用由新的 latest 代表，仍然是未验证的
+     */
+    private static final class Counter {
+
+        private final LongAdder count = new LongAdder();
+        private volatile Invocation latest;
+
+        private Invocation listed;
+        private long listedCount;
+        private Invocation verified;
+        private long verifiedCount;
+
+        long list(List<Invocation> representatives, List<Long> ends, long start) {
+            if (listed != null && listed.isVerified()) {
+                verified = listed;
+                verifiedCount = listedCount;
+            }
+            long end = start;
+            if (verifiedCount > 0) {
+                end += verifiedCount;
+                representatives.add(verified);
+                ends.add(end);
+            }
+            Invocation invocation = latest;
+            long total = count.sum();
+            listed = null;
+            if (total > verifiedCount && invocation != verified) {
+                end += total - verifiedCount;
+                representatives.add(invocation);
+                ends.add(end);
+                listed = invocation;
+                listedCount = total;
+            }
+            return end;
+        }
+    }
+
+    /**
+     * representatives[i] 重复到下标 ends[i] 之前
+     */
+    private static final class RepeatedInvocations extends AbstractList<Invocation> {
+
+        private final Invocation[] representatives;
+        private final long[] ends;
+
+        RepeatedInvocations(Invocation[] representatives, long[] ends) {
+            this.representatives = representatives;
+            this.ends = ends;
+        }
+
+        @Override
+        public Invocation get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int found = Arrays.binarySearch(ends, index + 1L);
+            return representatives[found >= 0 ? found : -found - 1];
+        }
+
+        @Override
+        public int size() {
+            return ends.length == 0 ? 0 : (int) ends[ends.length - 1];
+        }
+    }
+}
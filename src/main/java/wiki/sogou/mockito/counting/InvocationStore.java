@@ -0,0 +1,22 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.invocation.Invocation;
+
+import java.util.List;
+
+/**
+ * 代替 Mockito 调用列表的记录方式，每个 mock 一个，由 RecordingInvocationContainer 写入
+ * <p>
+ * 只收到普通的调用：打桩和验证时对 mock 的调用不会交给 store
+ */
+interface InvocationStore {
+
+    void record(Invocation invocation);
+
+    /**
+     * Mockito 验证、verifyNoMoreInteractions 和 mockingDetails 看到的调用列表，已验证的调用按 Invocation.isVerified 标记
+     */
+    List<Invocation> getInvocations();
+
+    void clear();
+}
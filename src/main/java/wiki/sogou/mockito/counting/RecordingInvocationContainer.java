@@ -0,0 +1,232 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.exceptions.base.MockitoException;
+import org.mockito.internal.handler.MockHandlerImpl;
+import org.mockito.internal.invocation.StubInfoImpl;
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.internal.stubbing.StubbedInvocationMatcher;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.MatchableInvocation;
+import org.mockito.invocation.MockHandler;
+import org.mockito.listeners.VerificationStartedListener;
+import org.mockito.mock.MockCreationSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
+import org.mockito.stubbing.Stubbing;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 调用记录交给 InvocationStore 的 InvocationContainerImpl，由 SogouMockMaker 换进 Mockito 的 MockHandlerImpl，
+ * 验证、打桩、默认 answer 和监听器仍然是 Mockito 自己的逻辑。与 Mockito 的容器相比：
+ * <ul>
+ * <li>调用不写入加锁的调用列表。每个线程最近的一次调用先暂存，下一次调用或者读取调用列表时才交给 store；
+ * 暂存的调用被 when(...).thenReturn 变成打桩时直接丢弃，所以打桩时对 mock 的调用不会被记录</li>
+ * <li>等待打桩的调用 (Mockito 的 invocationForStubbing) 按线程保存，调用路径上不写共享字段</li>
+ * <li>查找打桩不加锁，读的是打桩列表的快照，只在新增打桩时重建</li>
+ * </ul>
+ */
+public class RecordingInvocationContainer extends InvocationContainerImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final StubbedInvocationMatcher[] NO_STUBBINGS = new StubbedInvocationMatcher[0];
+
+    private static final Field CONTAINER;
+
+    static {
+        try {
+            CONTAINER = MockHandlerImpl.class.getDeclaredField("invocationContainer");
+            CONTAINER.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final InvocationStore store;
+    private final Queue<Pending> pendings = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Pending> local = ThreadLocal.withInitial(() -> {
+        Pending pending = new Pending();
+        pendings.add(pending);
+        return pending;
+    });
+    /**
+     * 新的打桩在前，与 Mockito 查找打桩的顺序相同
+     */
+    private volatile StubbedInvocationMatcher[] stubbings = NO_STUBBINGS;
+    private volatile Collection<Stubbing> stubbingsAscending = Collections.emptyList();
+
+    @SuppressWarnings("rawtypes")
+    RecordingInvocationContainer(MockCreationSettings settings, InvocationStore store) {
+        super(settings);
+        this.store = store;
+    }
+
+    /**
+     * mock 的设置里有 CountingMocks 的记录方式时，把 handler 里 MockHandlerImpl 的调用容器换成新的 RecordingInvocationContainer。
+     * 每次都创建新的 store，所以 Mockito.reset 会清空记录
+     */
+    public static void install(MockHandler<?> handler) {
+        MockCreationSettings<?> settings = handler.getMockSettings();
+        for (VerificationStartedListener listener : settings.getVerificationStartedListeners()) {
+            if (listener instanceof RecordingMode) {
+                InvocationStore store = ((RecordingMode) listener).newStore();
+                try {
+                    CONTAINER.set(unwrap(handler), new RecordingInvocationContainer(settings, store));
+                } catch (IllegalAccessException e) {
+                    throw new MockitoException("Cannot replace invocation container of " + handler, e);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mockito 的 handler 链是 InvocationNotifierHandler -> NullResultGuardian -> MockHandlerImpl，每一层只有一个 MockHandler 字段
+     */
+    private static MockHandlerImpl<?> unwrap(MockHandler<?> handler) throws IllegalAccessException {
+        Object current = handler;
+        while (!(current instanceof MockHandlerImpl)) {
+            Field delegate = null;
+            for (Field field : current.getClass().getDeclaredFields()) {
+                if (field.getType() == MockHandler.class) {
+                    delegate = field;
+                }
+            }
+            if (delegate == null) {
+                throw new MockitoException("Cannot find MockHandlerImpl in " + current.getClass().getName());
+            }
+            delegate.setAccessible(true);
+            current = delegate.get(current);
+        }
+        return (MockHandlerImpl<?>) current;
+    }
+
+    @Override
+    public void setInvocationForPotentialStubbing(MatchableInvocation invocation) {
+        Pending pending = local.get();
+        pending.target = invocation;
+        MatchableInvocation previous = pending.getAndSet(invocation);
+        if (previous != null) {
+            store.record(previous.getInvocation());
+        }
+    }
+
+    @Override
+    public void resetInvocationForPotentialStubbing(MatchableInvocation invocation) {
+        local.get().target = invocation;
+    }
+
+    @Override
+    public boolean hasInvocationForPotentialStubbing() {
+        return local.get().target != null;
+    }
+
+    @Override
+    public Object invokedMock() {
+        return local.get().target.getInvocation().getMock();
+    }
+
+    @Override
+    public void setMethodForStubbing(MatchableInvocation invocation) {
+        local.get().target = invocation;
+        super.setMethodForStubbing(invocation);
+    }
+
+    /**
+     * when(mock.get(0)).thenReturn 走到这里，暂存的 get(0) 是打桩而不是调用，丢弃。
+     * Mockito 在这里从调用列表里删掉最后一个调用，这里的调用列表里没有它
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void addAnswer(Answer answer, Strictness stubbingStrictness) {
+        Pending pending = local.get();
+        pending.compareAndSet(pending.target, null);
+        addAnswer(answer, false, stubbingStrictness);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public StubbedInvocationMatcher addAnswer(Answer answer, boolean isConsecutive, Strictness stubbingStrictness) {
+        super.resetInvocationForPotentialStubbing(local.get().target);
+        StubbedInvocationMatcher stubbing = super.addAnswer(answer, isConsecutive, stubbingStrictness);
+        List<Stubbing> descending = getStubbingsDescending();
+        StubbedInvocationMatcher[] snapshot;
+        synchronized (descending) {
+            snapshot = descending.toArray(NO_STUBBINGS);
+        }
+        List<Stubbing> ascending = new ArrayList<>(Arrays.asList(snapshot));
+        Collections.reverse(ascending);
+        stubbingsAscending = Collections.unmodifiableList(ascending);
+        stubbings = snapshot;
+        return stubbing;
+    }
+
+    @Override
+    public StubbedInvocationMatcher findAnswerFor(Invocation invocation) {
+        for (StubbedInvocationMatcher stubbing : stubbings) {
+            if (stubbing.matches(invocation)) {
+                stubbing.markStubUsed(invocation);
+                invocation.markStubbed(new StubInfoImpl(stubbing));
+                return stubbing;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Answer findStubbedAnswer() {
+        super.resetInvocationForPotentialStubbing(local.get().target);
+        return super.findStubbedAnswer();
+    }
+
+    /**
+     * Mockito 每次调用都会取一次 (通知 StubbingLookupListener)，这里返回快照，不再每次复制
+     */
+    @Override
+    public Collection<Stubbing> getStubbingsAscending() {
+        return stubbingsAscending;
+    }
+
+    /**
+     * 先把所有线程暂存的调用交给 store。和 Mockito 一样，读取调用列表应该在调用的线程结束 (join) 之后
+     */
+    @Override
+    public List<Invocation> getInvocations() {
+        for (Pending pending : pendings) {
+            MatchableInvocation invocation = pending.getAndSet(null);
+            if (invocation != null) {
+                store.record(invocation.getInvocation());
+            }
+        }
+        return store.getInvocations();
+    }
+
+    @Override
+    public void clearInvocations() {
+        for (Pending pending : pendings) {
+            pending.set(null);
+        }
+        store.clear();
+    }
+
+    /**
+     * 值是暂存的、还没交给 store 的调用，读取调用列表的线程也会取走它，所以用原子操作；
+     * target 是等待打桩的调用，只由所属线程读写
+     */
+    private static final class Pending extends AtomicReference<MatchableInvocation> {
+
+        private static final long serialVersionUID = 1L;
+
+        private MatchableInvocation target;
+    }
+}
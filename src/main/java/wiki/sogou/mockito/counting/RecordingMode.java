@@ -0,0 +1,27 @@
+package wiki.sogou.mockito.counting;
+
+import org.mockito.listeners.VerificationStartedEvent;
+import org.mockito.listeners.VerificationStartedListener;
+
+import java.util.function.Supplier;
+
+/**
+ * 登记在 MockSettings.verificationStartedListeners 里的记录方式，SogouMockMaker 创建和 reset mock 时据此换上
+ * RecordingInvocationContainer。选 verificationStartedListeners 是因为它只在 verify 开始时通知一次，不在调用路径上
+ */
+final class RecordingMode implements VerificationStartedListener {
+
+    private final Supplier<InvocationStore> stores;
+
+    RecordingMode(Supplier<InvocationStore> stores) {
+        this.stores = stores;
+    }
+
+    InvocationStore newStore() {
+        return stores.get();
+    }
+
+    @Override
+    public void onVerificationStarted(VerificationStartedEvent event) {
+    }
+}
@@ -0,0 +1,23 @@
+package wiki.sogou.mockito.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(MockEvents.CREATION)
+@Label("Mock Creation")
+@Category("Mockito")
+@Description("mock()/spy() 创建一个 mock，包括 mock 类的生成或查找和实例化")
+final class MockCreationEvent extends Event {
+
+    @Label("Mocked Type")
+    Class<?> mockedType;
+
+    @Label("Extra Interfaces")
+    int extraInterfaces;
+
+    @Label("Spy")
+    boolean spy;
+}
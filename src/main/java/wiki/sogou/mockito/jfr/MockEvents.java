@@ -0,0 +1,72 @@
+package wiki.sogou.mockito.jfr;
+
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+import wiki.sogou.mockito.util.VerificationFlag;
+
+import java.util.function.Supplier;
+
+/**
+ * Mockito 的 JFR 事件，由 SogouMockMaker 在 -Dsogou.mockito.jfr=true 时发出
+ * <p>
+ * JFR 需要 JDK 11 或 8u272 以上，更早的 JVM 上 {@link #isAvailable()} 为 false，这个包的其他类不会被加载。
+ * 没有开启记录时每次调用只多一次 isEnabled 判断
+ */
+public final class MockEvents {
+
+    public static final String CREATION = "wiki.sogou.mockito.MockCreation";
+    public static final String INVOCATION = "wiki.sogou.mockito.MockInvocation";
+
+    private static final boolean AVAILABLE = detect();
+
+    private MockEvents() {
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("jdk.jfr.Event", false, MockEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 包装 handler，之后对 mock 的每次调用都会提交 MockInvocationEvent。
+     * 在创建 mock 的线程上注册验证的监听器，这样第一次调用就是 verify() 时也能识别
+     */
+    public static <T> MockHandler<T> recording(MockHandler<T> handler) {
+        VerificationFlag.listen();
+        return handler instanceof RecordingMockHandler ? handler : new RecordingMockHandler<>(handler);
+    }
+
+    /**
+     * 在 MockCreationEvent 中执行 mock 的创建
+     */
+    public static <T> T recordCreation(MockCreationSettings<?> settings, Supplier<T> creation) {
+        RecordingMockHandler.settle();
+        MockCreationEvent event = new MockCreationEvent();
+        event.begin();
+        T mock = creation.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.mockedType = settings.getTypeToMock();
+            event.extraInterfaces = settings.getExtraInterfaces().size();
+            event.spy = settings.getSpiedInstance() != null;
+            event.commit();
+        }
+        return mock;
+    }
+
+    /**
+     * 提交当前线程暂存的 MockInvocationEvent。普通调用的事件要等到确定它不是 when(...) 里的打桩才提交，
+     * 线程上最后一次调用之后如果不再调用或创建 mock，要在结束 JFR 记录之前调用这里
+     */
+    public static void flush() {
+        RecordingMockHandler.settle();
+    }
+}
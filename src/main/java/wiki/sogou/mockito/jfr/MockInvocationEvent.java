@@ -0,0 +1,27 @@
+package wiki.sogou.mockito.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(MockEvents.INVOCATION)
+@Label("Mock Invocation")
+@Category("Mockito")
+@Description("对 mock 方法的一次调用经过 MockHandler 的处理，phase 区分普通调用 (INVOKE)、打桩 (STUB，包括 when(mock.get(0)) 里的调用) 和 verify() 验证 (VERIFY)")
+final class MockInvocationEvent extends Event {
+
+    @Label("Mocked Type")
+    Class<?> mockedType;
+
+    @Label("Method")
+    String method;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Stubbed")
+    @Description("调用命中了打桩，而不是落到默认 Answer")
+    boolean stubbed;
+}
@@ -0,0 +1,117 @@
+package wiki.sogou.mockito.jfr;
+
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationContainer;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+import wiki.sogou.mockito.util.VerificationFlag;
+
+/**
+ * 包在 Mockito 的 MockHandler 外面，每次调用提交一个 MockInvocationEvent
+ * <p>
+ * verify() 的调用由 VerificationFlag 识别，监听器在包装 handler 时就注册；doXxx().when() 的打桩调用由调用容器中等待打桩的 Answer 识别。
+ * when(mock.get(0)) 里的调用发生在 when() 之前，所以普通调用的事件先暂存，等到同一线程下一次调用 mock、创建 mock
+ * 或者 {@link MockEvents#flush()} 时才提交，这期间 mock 多了打桩就改记为 STUB，与 PhaseClock 的做法相同
+ */
+final class RecordingMockHandler<T> implements MockHandler<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<Pending> PENDING = ThreadLocal.withInitial(Pending::new);
+
+    private final MockHandler<T> delegate;
+
+    RecordingMockHandler(MockHandler<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 提交当前线程暂存的事件
+     */
+    static void settle() {
+        PENDING.get().settle();
+    }
+
+    @Override
+    public Object handle(Invocation invocation) throws Throwable {
+        MockInvocationEvent event = new MockInvocationEvent();
+        if (!event.isEnabled()) {
+            return delegate.handle(invocation);
+        }
+        Pending pending = PENDING.get();
+        pending.settle();
+        VerificationFlag verification = VerificationFlag.listen();
+        verification.clear();
+        InvocationContainerImpl container = container();
+        boolean stubbing = container != null && container.hasAnswersForStubbing();
+        event.begin();
+        try {
+            return delegate.handle(invocation);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.mockedType = getMockSettings().getTypeToMock();
+                event.method = invocation.getMethod().getName();
+                event.stubbed = invocation.stubInfo() != null;
+                if (verification.isVerified()) {
+                    event.phase = "VERIFY";
+                    event.commit();
+                } else if (stubbing) {
+                    event.phase = "STUB";
+                    event.commit();
+                } else {
+                    event.phase = "INVOKE";
+                    pending.hold(event, container);
+                }
+            }
+        }
+    }
+
+    private InvocationContainerImpl container() {
+        InvocationContainer container = delegate.getInvocationContainer();
+        return container instanceof InvocationContainerImpl ? (InvocationContainerImpl) container : null;
+    }
+
+    @Override
+    public MockCreationSettings<T> getMockSettings() {
+        return delegate.getMockSettings();
+    }
+
+    @Override
+    public InvocationContainer getInvocationContainer() {
+        return delegate.getInvocationContainer();
+    }
+
+    /**
+     * 当前线程上一次普通调用的事件，和当时 mock 的打桩个数
+     */
+    private static final class Pending {
+
+        private MockInvocationEvent event;
+        private InvocationContainerImpl container;
+        private int stubbings;
+
+        void hold(MockInvocationEvent event, InvocationContainerImpl container) {
+            if (container == null) {
+                event.commit();
+                return;
+            }
+            this.event = event;
+            this.container = container;
+            this.stubbings = container.getStubbingsDescending().size();
+        }
+
+        void settle() {
+            if (event == null) {
+                return;
+            }
+            if (container.getStubbingsDescending().size() > stubbings) {
+                event.phase = "STUB";
+            }
+            event.commit();
+            event = null;
+            container = null;
+        }
+    }
+}
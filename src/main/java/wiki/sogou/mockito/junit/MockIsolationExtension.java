@@ -0,0 +1,137 @@
+package wiki.sogou.mockito.junit;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.Mockito;
+import org.mockito.listeners.MockCreationListener;
+import org.mockito.mock.MockCreationSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 并行执行测试时隔离每个测试的 mock 状态，并报告跨测试泄漏的 mock
+ * <p>
+ * Mockito 的打桩进度和 matcher 栈都是线程私有的，而 JUnit 的线程池会复用线程，
+ * 一个测试留下的未完成打桩 (比如只写了 when(mock.get(0)) 没有 thenReturn) 会影响同一线程上的下一个测试。
+ * 每个测试结束时这里调用 validateMockitoUsage() 清理并报告这种情况。
+ * <p>
+ * 每个测试创建的 mock 都会登记所属测试和结束时的调用次数，测试类结束时如果发现已经结束的测试的 mock 又被调用过，
+ * 说明 mock 通过静态字段等方式泄漏给了其他测试，会输出报告；配置参数 sogou.mockito.isolation.failOnLeak=true 时直接失败
+ * <p>
+ * 只有配置参数 (或系统属性) sogou.mockito.isolation=true 时才生效，与其他扩展共用自动注册时互不影响
+ */
+public class MockIsolationExtension implements BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+
+    public static final String ENABLED = "sogou.mockito.isolation";
+
+    public static final String FAIL_ON_LEAK = "sogou.mockito.isolation.failOnLeak";
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(MockIsolationExtension.class);
+
+    /**
+     * 已经结束的测试创建的 mock，mock 本身被回收后自动移除
+     */
+    private static final Map<Object, Ownership> FINISHED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        if (!enabled(context)) {
+            return;
+        }
+        CreatedMocks created = new CreatedMocks();
+        Mockito.framework().addListener(created);
+        context.getStore(NAMESPACE).put(CreatedMocks.class, created);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        CreatedMocks created = context.getStore(NAMESPACE).remove(CreatedMocks.class, CreatedMocks.class);
+        if (created == null) {
+            return;
+        }
+        Mockito.framework().removeListener(created);
+        String owner = context.getUniqueId();
+        for (Object mock : created.mocks) {
+            FINISHED.put(mock, new Ownership(owner, invocationCount(mock)));
+        }
+        // 放在最后，即使抛出异常 mock 也已经登记
+        Mockito.validateMockitoUsage();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (!enabled(context)) {
+            return;
+        }
+        List<String> leaks = findLeaks();
+        if (leaks.isEmpty()) {
+            return;
+        }
+        for (String leak : leaks) {
+            context.publishReportEntry("mock-leak", leak);
+        }
+        if (context.getConfigurationParameter(FAIL_ON_LEAK).map(Boolean::parseBoolean).orElse(false)) {
+            throw new AssertionError(leaks.size() + " mock(s) leaked across tests:\n" + String.join("\n", leaks));
+        }
+    }
+
+    private static boolean enabled(ExtensionContext context) {
+        return context.getConfigurationParameter(ENABLED).map(Boolean::parseBoolean).orElse(false);
+    }
+
+    /**
+     * 找出在所属测试结束之后又被调用过的 mock，每个 mock 只报告一次
+     */
+    static List<String> findLeaks() {
+        List<String> leaks = new ArrayList<>();
+        synchronized (FINISHED) {
+            for (Map.Entry<Object, Ownership> entry : FINISHED.entrySet()) {
+                Ownership ownership = entry.getValue();
+                int count = invocationCount(entry.getKey());
+                if (count > ownership.invocationCount && !ownership.reported) {
+                    ownership.reported = true;
+                    leaks.add("Mock of " + Mockito.mockingDetails(entry.getKey()).getMockCreationSettings().getTypeToMock().getName()
+                            + " created by " + ownership.owner + " was invoked " + (count - ownership.invocationCount)
+                            + " time(s) after that test finished");
+                }
+            }
+        }
+        return leaks;
+    }
+
+    private static int invocationCount(Object mock) {
+        return Mockito.mockingDetails(mock).getInvocations().size();
+    }
+
+    private static final class Ownership {
+
+        private final String owner;
+        private final int invocationCount;
+        private boolean reported;
+
+        Ownership(String owner, int invocationCount) {
+            this.owner = owner;
+            this.invocationCount = invocationCount;
+        }
+    }
+
+    /**
+     * Mockito 的监听器是按线程注册的，所以这里只会收到当前测试线程创建的 mock
+     */
+    private static final class CreatedMocks implements MockCreationListener {
+
+        private final List<Object> mocks = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void onMockCreated(Object mock, MockCreationSettings settings) {
+            mocks.add(mock);
+        }
+    }
+}
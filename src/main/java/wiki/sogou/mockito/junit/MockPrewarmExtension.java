@@ -0,0 +1,24 @@
+package wiki.sogou.mockito.junit;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.Mockito;
+import wiki.sogou.mockito.maker.MakerSettings;
+
+/**
+ * 在第一个测试类开始前初始化 Mockito 的 MockMaker 插件，
+ * 使 -Dsogou.mockito.prewarm 指定的 mock 类在任何 BeforeEach 和测试方法之前就开始在后台准备；
+ * 没有设置时什么也不做，与其他扩展共用自动注册时互不影响
+ */
+public class MockPrewarmExtension implements BeforeAllCallback {
+
+    private static final boolean PREWARM = MakerSettings.prewarmList() != null;
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (PREWARM) {
+            // 第一次判断是否为 mock 时 Mockito 加载 MockMaker 插件，SogouMockMaker 的构造方法启动预热
+            Mockito.mockingDetails(context.getRequiredTestClass()).isMock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package wiki.sogou.mockito.junit;
+
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import wiki.sogou.mockito.util.VerificationFlag;
+
+/**
+ * 当前测试线程上 mock 相关的耗时：创建和打桩计入 setup，verify 计入 verify
+ * <p>
+ * 由 PhaseTimingExtension 在测试开始时启用，SogouMockMaker 在 -Dsogou.mockito.phaseTiming=true 时上报
+ */
+public final class PhaseClock {
+
+    private static final ThreadLocal<PhaseClock> CURRENT = new ThreadLocal<>();
+
+    long setupNanos;
+    long verifyNanos;
+
+    /**
+     * 上一次普通调用的耗时，之后如果同一个 mock 多了打桩，说明它是 when(mock.get(0)) 里的调用
+     */
+    private long pendingNanos;
+    private InvocationContainerImpl pendingContainer;
+    private int pendingStubbings;
+
+    PhaseClock() {
+    }
+
+    static PhaseClock start() {
+        // verify() 之前就要注册监听器
+        VerificationFlag.listen();
+        PhaseClock clock = new PhaseClock();
+        CURRENT.set(clock);
+        return clock;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 当前线程没有在计时的测试时返回 null
+     */
+    public static PhaseClock current() {
+        return CURRENT.get();
+    }
+
+    public void mockCreated(long nanos) {
+        settle();
+        setupNanos += nanos;
+    }
+
+    void stubbed(long nanos) {
+        settle();
+        setupNanos += nanos;
+    }
+
+    void verified(long nanos) {
+        settle();
+        verifyNanos += nanos;
+    }
+
+    void invoked(long nanos, InvocationContainerImpl container) {
+        settle();
+        pendingNanos = nanos;
+        pendingContainer = container;
+        pendingStubbings = container == null ? 0 : container.getStubbingsDescending().size();
+    }
+
+    void settle() {
+        if (pendingContainer != null && pendingContainer.getStubbingsDescending().size() > pendingStubbings) {
+            setupNanos += pendingNanos;
+        }
+        pendingContainer = null;
+        pendingNanos = 0;
+    }
+
+    void reset() {
+        setupNanos = 0;
+        verifyNanos = 0;
+        pendingContainer = null;
+        pendingNanos = 0;
+    }
+}
@@ -0,0 +1,165 @@
+package wiki.sogou.mockito.junit;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import wiki.sogou.mockito.maker.MakerSettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 把每个测试的耗时分成三段并写成 JSON 报告
+ * <ul>
+ * <li>setup: BeforeEach (包括 openMocks) 加上测试方法里创建 mock 和打桩的时间</li>
+ * <li>verify: 测试方法里 verify()/inOrder.verify() 的时间</li>
+ * <li>exercise: 测试方法的其余时间，即被测代码本身</li>
+ * </ul>
+ * 只有 -Dsogou.mockito.phaseTiming=true 时才生效，这时 SogouMockMaker 上报测试方法内部的 mock 耗时；
+ * 没有设置时什么也不做，与其他扩展共用自动注册时互不影响。每个测试类结束时重写整个报告，
+ * 默认写到 target/mock-phase-timings.json，可以用配置参数 sogou.mockito.phaseTiming.report 指定
+ */
+public class PhaseTimingExtension implements BeforeEachCallback, BeforeTestExecutionCallback,
+        AfterTestExecutionCallback, AfterEachCallback, AfterAllCallback {
+
+    public static final String REPORT = "sogou.mockito.phaseTiming.report";
+
+    private static final String DEFAULT_REPORT = "target/mock-phase-timings.json";
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(PhaseTimingExtension.class);
+
+    private static final Queue<Timing> TIMINGS = new ConcurrentLinkedQueue<>();
+
+    private static final boolean ENABLED = MakerSettings.phaseTiming();
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        if (!ENABLED) {
+            return;
+        }
+        Timing timing = new Timing(context.getRequiredTestClass().getName(), context.getRequiredTestMethod().getName());
+        timing.clock = PhaseClock.start();
+        timing.beforeEachStart = System.nanoTime();
+        context.getStore(NAMESPACE).put(Timing.class, timing);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        Timing timing = context.getStore(NAMESPACE).get(Timing.class, Timing.class);
+        if (timing == null) {
+            return;
+        }
+        timing.testStart = System.nanoTime();
+        timing.beforeEachNanos = timing.testStart - timing.beforeEachStart;
+        timing.clock.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Timing timing = context.getStore(NAMESPACE).get(Timing.class, Timing.class);
+        if (timing == null || timing.testStart == 0) {
+            return;
+        }
+        long testNanos = System.nanoTime() - timing.testStart;
+        PhaseClock clock = timing.clock;
+        clock.settle();
+        timing.setupNanos = timing.beforeEachNanos + clock.setupNanos;
+        timing.verifyNanos = clock.verifyNanos;
+        timing.exerciseNanos = Math.max(0, testNanos - clock.setupNanos - clock.verifyNanos);
+        timing.failed = context.getExecutionException().isPresent();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        Timing timing = context.getStore(NAMESPACE).remove(Timing.class, Timing.class);
+        if (timing == null) {
+            return;
+        }
+        PhaseClock.stop();
+        if (timing.testStart != 0) {
+            TIMINGS.add(timing);
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (!ENABLED) {
+            return;
+        }
+        Path report = Paths.get(context.getConfigurationParameter(REPORT).orElse(DEFAULT_REPORT));
+        try {
+            write(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write phase timing report " + report, e);
+        }
+    }
+
+    private static synchronized void write(Path report) throws IOException {
+        List<Timing> timings = new ArrayList<>(TIMINGS);
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            out.write("{\"unit\":\"us\",\"tests\":[");
+            for (int i = 0; i < timings.size(); i++) {
+                Timing timing = timings.get(i);
+                out.write(i == 0 ? "\n" : ",\n");
+                out.write("{\"class\":\"" + escape(timing.className) + "\",\"method\":\"" + escape(timing.methodName)
+                        + "\",\"failed\":" + timing.failed
+                        + ",\"setup\":" + micros(timing.setupNanos)
+                        + ",\"exercise\":" + micros(timing.exerciseNanos)
+                        + ",\"verify\":" + micros(timing.verifyNanos) + "}");
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.valueOf(nanos / 1000.0);
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static final class Timing {
+
+        private final String className;
+        private final String methodName;
+        private PhaseClock clock;
+        private long beforeEachStart;
+        private long beforeEachNanos;
+        private long testStart;
+        private long setupNanos;
+        private long exerciseNanos;
+        private long verifyNanos;
+        private boolean failed;
+
+        Timing(String className, String methodName) {
+            this.className = className;
+            this.methodName = methodName;
+        }
+    }
+}
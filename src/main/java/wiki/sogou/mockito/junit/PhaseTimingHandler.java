@@ -0,0 +1,67 @@
+package wiki.sogou.mockito.junit;
+
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationContainer;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+import wiki.sogou.mockito.util.VerificationFlag;
+
+/**
+ * 包在 Mockito 的 MockHandler 外面，把每次调用的耗时按 stub/verify/普通调用上报给当前线程的 PhaseClock
+ */
+public final class PhaseTimingHandler<T> implements MockHandler<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MockHandler<T> delegate;
+
+    private PhaseTimingHandler(MockHandler<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public static <T> MockHandler<T> wrap(MockHandler<T> handler) {
+        return handler instanceof PhaseTimingHandler ? handler : new PhaseTimingHandler<>(handler);
+    }
+
+    @Override
+    public Object handle(Invocation invocation) throws Throwable {
+        PhaseClock clock = PhaseClock.current();
+        if (clock == null) {
+            return delegate.handle(invocation);
+        }
+        clock.settle();
+        VerificationFlag verification = VerificationFlag.listen();
+        verification.clear();
+        InvocationContainerImpl container = container();
+        boolean stubbing = container != null && container.hasAnswersForStubbing();
+        long start = System.nanoTime();
+        try {
+            return delegate.handle(invocation);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (verification.isVerified()) {
+                clock.verified(elapsed);
+            } else if (stubbing) {
+                clock.stubbed(elapsed);
+            } else {
+                clock.invoked(elapsed, container);
+            }
+        }
+    }
+
+    private InvocationContainerImpl container() {
+        InvocationContainer container = delegate.getInvocationContainer();
+        return container instanceof InvocationContainerImpl ? (InvocationContainerImpl) container : null;
+    }
+
+    @Override
+    public MockCreationSettings<T> getMockSettings() {
+        return delegate.getMockSettings();
+    }
+
+    @Override
+    public InvocationContainer getInvocationContainer() {
+        return delegate.getInvocationContainer();
+    }
+}
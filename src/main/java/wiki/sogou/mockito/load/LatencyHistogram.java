@@ -0,0 +1,78 @@
+package wiki.sogou.mockito.load;
+
+/**
+ * 对数分桶的延迟直方图，单位纳秒，相对误差约 1/SUB_BUCKETS
+ * <p>
+ * 每个 2 的幂区间再等分成 SUB_BUCKETS 个桶，记录一次只是一次数组自增；不是线程安全的，每个线程用自己的实例最后合并
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long totalCount;
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        totalCount++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile 0 到 100 之间
+     * @return 对应分位数所在桶的上界
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = (index - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,124 @@
+package wiki.sogou.mockito.load;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用多个线程在给定时间内反复执行选中的阶段，统计每个阶段的吞吐量和延迟分布
+ */
+public class LoadRunner {
+
+    private final Set<Phase> phases;
+    private final int threads;
+    private final long durationNanos;
+    private final long warmupNanos;
+
+    public LoadRunner(Set<Phase> phases, int threads, long duration, long warmup, TimeUnit unit) {
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("No phase selected");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.phases = EnumSet.copyOf(phases);
+        this.threads = threads;
+        this.durationNanos = unit.toNanos(duration);
+        this.warmupNanos = unit.toNanos(warmup);
+    }
+
+    public Map<Phase, LatencyHistogram> run() throws InterruptedException {
+        List<Worker> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(start);
+            worker.setName("load-runner-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        long now = System.nanoTime();
+        for (Worker worker : workers) {
+            worker.measureFrom = now + warmupNanos;
+            worker.deadline = now + warmupNanos + durationNanos;
+        }
+        start.countDown();
+
+        Map<Phase, LatencyHistogram> merged = new EnumMap<>(Phase.class);
+        for (Phase phase : phases) {
+            merged.put(phase, new LatencyHistogram());
+        }
+        for (Worker worker : workers) {
+            worker.join();
+            if (worker.failure != null) {
+                throw new IllegalStateException("Worker " + worker.getName() + " failed", worker.failure);
+            }
+            for (Phase phase : phases) {
+                merged.get(phase).merge(worker.histograms.get(phase));
+            }
+        }
+        return merged;
+    }
+
+    public void report(Map<Phase, LatencyHistogram> histograms, PrintStream out) {
+        double seconds = durationNanos / 1e9;
+        out.printf("threads=%d duration=%.1fs%n", threads, seconds);
+        out.printf("%-8s %14s %12s %12s %12s %12s %12s%n",
+                "phase", "ops/s", "count", "p50(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.printf("%-8s %14.0f %12d %12.2f %12.2f %12.2f %12.2f%n",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), h.getTotalCount() / seconds, h.getTotalCount(),
+                    h.percentile(50) / 1e3, h.percentile(99) / 1e3, h.percentile(99.9) / 1e3, h.getMax() / 1e3);
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final CountDownLatch start;
+        private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+        private volatile long measureFrom;
+        private volatile long deadline;
+        private Throwable failure;
+
+        Worker(CountDownLatch start) {
+            this.start = start;
+            for (Phase phase : phases) {
+                histograms.put(phase, new LatencyHistogram());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                Phase.Round round = new Phase.Round();
+                Phase[] all = Phase.values();
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    boolean measuring = now >= measureFrom;
+                    for (Phase phase : all) {
+                        boolean selected = phases.contains(phase);
+                        if (!selected && !phase.isPrerequisite()) {
+                            continue;
+                        }
+                        long begin = System.nanoTime();
+                        phase.run(round);
+                        if (selected && measuring) {
+                            histograms.get(phase).record(System.nanoTime() - begin);
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+    }
+}
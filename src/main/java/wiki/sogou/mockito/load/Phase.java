@@ -0,0 +1,73 @@
+package wiki.sogou.mockito.load;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 压测的一个阶段，对应 MockitoTest 中 mock 的一种用法
+ * <p>
+ * 每一轮按声明顺序执行所有需要的阶段，后面的阶段使用前面阶段创建的 mock
+ */
+public enum Phase {
+
+    CREATE {
+        @Override
+        @SuppressWarnings("unchecked")
+        void run(Round round) {
+            round.mock = mock(List.class);
+        }
+    },
+    STUB {
+        @Override
+        void run(Round round) {
+            when(round.mock.get(0)).thenReturn("first");
+        }
+    },
+    INVOKE {
+        @Override
+        void run(Round round) {
+            round.mock.add("one");
+            round.result = round.mock.get(0);
+        }
+    },
+    VERIFY {
+        @Override
+        void run(Round round) {
+            verify(round.mock).add("one");
+        }
+    },
+    SPY {
+        @Override
+        void run(Round round) {
+            List<Object> spy = spy(new LinkedList<>());
+            spy.add("one");
+            round.result = spy.get(0);
+        }
+    },
+    RESET {
+        @Override
+        void run(Round round) {
+            reset((Object) round.mock);
+        }
+    };
+
+    abstract void run(Round round);
+
+    /**
+     * CREATE 和 INVOKE 是其他阶段的前提，没有选中时也会执行，只是不计时
+     */
+    boolean isPrerequisite() {
+        return this == CREATE || this == INVOKE;
+    }
+
+    /**
+     * 一轮压测中各阶段共享的状态
+     */
+    static final class Round {
+
+        List<Object> mock;
+        Object result;
+    }
+}
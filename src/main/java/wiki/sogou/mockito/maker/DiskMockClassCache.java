@@ -0,0 +1,64 @@
+package wiki.sogou.mockito.maker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 把生成的 mock 类字节码保存在本地目录，后面启动的 JVM 直接加载而不再生成
+ * <p>
+ * 每个 MockClassKey 对应一个文件，先写临时文件再原子替换，多个并发的 fork 共享同一个目录也是安全的。
+ * 缓存只是加速手段，读写失败时当作未命中处理
+ */
+public class DiskMockClassCache {
+
+    private final Path directory;
+
+    public DiskMockClassCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public MockClassBytes load(MockClassKey key) {
+        Path file = directory.resolve(MockClassFormat.fileName(key));
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return MockClassFormat.read(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void store(MockClassKey key, MockClassBytes bytes) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, key.getDigest(), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                MockClassFormat.write(bytes, out);
+            }
+            Files.move(tmp, directory.resolve(MockClassFormat.fileName(key)),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+        } catch (IOException ignored) {
+            // 写不进缓存只是下次还要重新生成
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
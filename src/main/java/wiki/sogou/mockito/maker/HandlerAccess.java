@@ -0,0 +1,13 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.invocation.MockHandler;
+
+/**
+ * 生成的 mock 类都实现这个接口，用一个字段保存自己的 MockHandler
+ */
+public interface HandlerAccess {
+
+    MockHandler<?> getMockHandler();
+
+    void setMockHandler(MockHandler<?> mockHandler);
+}
@@ -0,0 +1,23 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.exceptions.stacktrace.StackTraceCleaner;
+import org.mockito.plugins.StackTraceCleanerProvider;
+
+/**
+ * 通过 mockito-extensions/org.mockito.plugins.StackTraceCleanerProvider 注册，
+ * eager 模式下 Mockito 记录的调用位置和清理后的异常栈同样跳过 MockDispatcher、ProxyMocks、生成的 mock 类和 JDK 动态代理的栈帧
+ */
+public class InternalFrameCleanerProvider implements StackTraceCleanerProvider {
+
+    @Override
+    public StackTraceCleaner getStackTraceCleaner(StackTraceCleaner defaultCleaner) {
+        return element -> defaultCleaner.isIn(element) && !isOwnFrame(element.getClassName());
+    }
+
+    /**
+     * Mockito 自己的栈帧交给默认的 cleaner 判断，它会保留 runner 和 rule 的栈帧
+     */
+    private static boolean isOwnFrame(String className) {
+        return !className.startsWith("org.mockito.") && InvocationLocations.isInternal(className);
+    }
+}
@@ -0,0 +1,210 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.invocation.Location;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 调用位置的延迟记录
+ * <p>
+ * Mockito 每次调用都会创建 Throwable、取出整个栈并过滤出调用位置，而位置只在验证失败时才用到。
+ * lazy 模式只记录到能找出调用位置为止，取栈和过滤推迟到第一次打印位置的时候：栈深的线程在 Java 9 以上用 StackWalker
+ * 只取出第一个不属于 Mockito 的栈帧，其余情况创建 Throwable (fillInStackTrace)。StackWalker 每次有固定的开销，
+ * Throwable 的开销随栈深增长，在 JDK 17 上两者大约在 80 层栈时持平，所以每个线程第一次记录时量一次栈深再选择。
+ * 项目以 Java 8 为目标，StackWalker 通过反射加载，Java 8 上总是用 Throwable。
+ * sampled 模式只有一部分调用记录位置；一旦打印了没有采样的位置 (通常是验证失败)，之后的调用都记录位置
+ */
+final class InvocationLocations {
+
+    static final Location NOT_SAMPLED = new NotSampled();
+
+    /**
+     * 打印过没有采样的位置之后为 true，sampled 模式从此记录所有调用的位置
+     */
+    static volatile boolean missedLocation;
+
+    /**
+     * 栈深达到这个值的线程用 StackWalker 记录位置
+     */
+    private static final int STACK_WALKER_DEPTH = 80;
+
+    private static final ThreadLocal<Boolean> DEEP_STACK =
+            ThreadLocal.withInitial(() -> new Throwable().getStackTrace().length >= STACK_WALKER_DEPTH);
+
+    private InvocationLocations() {
+    }
+
+    static Location lazy() {
+        if (StackFrames.AVAILABLE && DEEP_STACK.get()) {
+            return new LazyLocation(StackFrames.callerFrame());
+        }
+        return new LazyLocation(new Throwable());
+    }
+
+    static Location sampled(int sampling) {
+        return missedLocation || ThreadLocalRandom.current().nextInt(sampling) == 0 ? lazy() : NOT_SAMPLED;
+    }
+
+    /**
+     * Mockito、ByteBuddy、MockDispatcher、本类、生成的 mock 类以及 JDK 动态代理和 ProxyMocks 的栈帧都不算调用位置
+     */
+    static boolean isInternal(String className) {
+        return className.startsWith("org.mockito.")
+                || className.startsWith("net.bytebuddy.")
+                || isClassOrNested(className, MockDispatcher.class)
+                || isClassOrNested(className, InvocationLocations.class)
+                || isClassOrNested(className, ProxyMocks.class)
+                || className.startsWith("jdk.proxy")
+                || className.startsWith("com.sun.proxy.")
+                || className.contains("$SogouMock$")
+                || className.contains("$MockitoMock$");
+    }
+
+    private static boolean isClassOrNested(String className, Class<?> type) {
+        return className.startsWith(type.getName())
+                && (className.length() == type.getName().length() || className.charAt(type.getName().length()) == '$');
+    }
+
+    /**
+     * 通过反射使用的 StackWalker，只遍历到第一个不属于 Mockito 的栈帧为止
+     */
+    static final class StackFrames {
+
+        static final boolean AVAILABLE;
+        private static final MethodHandle WALK;
+        private static final MethodHandle CLASS_NAME;
+        private static final MethodHandle TO_STACK_TRACE_ELEMENT;
+        private static final Function<Stream<Object>, Object> FIRST_EXTERNAL =
+                frames -> frames.filter(frame -> !isInternal(className(frame))).findFirst().orElse(null);
+
+        static {
+            MethodHandle walk = null;
+            MethodHandle className = null;
+            MethodHandle toStackTraceElement = null;
+            try {
+                Class<?> walkerType = Class.forName("java.lang.StackWalker");
+                Class<?> frameType = Class.forName("java.lang.StackWalker$StackFrame");
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                Object walker = walkerType.getMethod("getInstance").invoke(null);
+                walk = lookup.findVirtual(walkerType, "walk", MethodType.methodType(Object.class, Function.class))
+                        .bindTo(walker);
+                className = lookup.findVirtual(frameType, "getClassName", MethodType.methodType(String.class))
+                        .asType(MethodType.methodType(String.class, Object.class));
+                toStackTraceElement = lookup.findVirtual(frameType, "toStackTraceElement",
+                        MethodType.methodType(StackTraceElement.class))
+                        .asType(MethodType.methodType(StackTraceElement.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                // Java 8
+            }
+            WALK = walk;
+            CLASS_NAME = className;
+            TO_STACK_TRACE_ELEMENT = toStackTraceElement;
+            AVAILABLE = walk != null;
+        }
+
+        private StackFrames() {
+        }
+
+        /**
+         * 返回 StackWalker.StackFrame，没有找到时返回 null
+         */
+        static Object callerFrame() {
+            try {
+                return (Object) WALK.invokeExact(FIRST_EXTERNAL);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot walk stack", e);
+            }
+        }
+
+        static StackTraceElement toStackTraceElement(Object frame) {
+            try {
+                return (StackTraceElement) TO_STACK_TRACE_ELEMENT.invokeExact(frame);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot resolve stack frame", e);
+            }
+        }
+
+        private static String className(Object frame) {
+            try {
+                return (String) CLASS_NAME.invokeExact(frame);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot resolve stack frame", e);
+            }
+        }
+    }
+
+    /**
+     * source 是 StackWalker.StackFrame 或者 Throwable，第一次打印时解析成 frame，序列化之前也先解析
+     */
+    static final class LazyLocation implements Location, Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        private final transient Object source;
+        private volatile StackTraceElement frame;
+        private volatile boolean resolved;
+
+        LazyLocation(Object source) {
+            this.source = source;
+        }
+
+        @Override
+        public String toString() {
+            StackTraceElement frame = frame();
+            return "-> at " + (frame == null ? "<Unknown location>" : frame);
+        }
+
+        @Override
+        public String getSourceFile() {
+            StackTraceElement frame = frame();
+            return frame == null ? "<unknown source file>" : frame.getFileName();
+        }
+
+        private StackTraceElement frame() {
+            if (!resolved) {
+                StackTraceElement frame = null;
+                if (source instanceof Throwable) {
+                    for (StackTraceElement element : ((Throwable) source).getStackTrace()) {
+                        if (!isInternal(element.getClassName())) {
+                            frame = element;
+                            break;
+                        }
+                    }
+                } else if (source != null) {
+                    frame = StackFrames.toStackTraceElement(source);
+                }
+                this.frame = frame;
+                resolved = true;
+            }
+            return frame;
+        }
+
+        private Object writeReplace() {
+            frame();
+            return this;
+        }
+    }
+
+    private static final class NotSampled implements Location, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String toString() {
+            missedLocation = true;
+            return "-> at <location not sampled; calls from now on record their location, or rerun with -D"
+                    + MakerSettings.LOCATION + "=eager>";
+        }
+
+        @Override
+        public String getSourceFile() {
+            return "<unknown source file>";
+        }
+    }
+}
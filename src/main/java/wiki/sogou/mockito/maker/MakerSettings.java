@@ -0,0 +1,108 @@
+package wiki.sogou.mockito.maker;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * SogouMockMaker 的配置，全部来自系统属性，在 surefire 的 argLine 或命令行里用 -D 设置
+ */
+public final class MakerSettings {
+
+    /**
+     * mock 类字节码缓存目录，设置之后启用 SogouMockMaker 自己的类生成
+     */
+    public static final String CACHE_DIR = "sogou.mockito.cache.dir";
+
+    /**
+     * 调用位置的记录方式: eager (默认，与 Mockito 相同)、lazy (只在报错时才展开栈)、sampled (按比例采样)，
+     * 不是 eager 时也会启用 SogouMockMaker 自己的类生成
+     */
+    public static final String LOCATION = "sogou.mockito.location";
+
+    /**
+     * sampled 模式下每多少次调用记录一次位置
+     */
+    public static final String LOCATION_SAMPLING = "sogou.mockito.location.sampling";
+
+    /**
+     * 为 mock 的创建和调用发出 JFR 事件，需要运行在支持 JFR 的 JVM 上
+     */
+    public static final String JFR = "sogou.mockito.jfr";
+
+    /**
+     * 向 PhaseTimingExtension 上报测试方法里创建 mock、打桩和验证的耗时
+     */
+    public static final String PHASE_TIMING = "sogou.mockito.phaseTiming";
+
+    /**
+     * mock 的实现方式: subclass (默认，生成子类) 或 proxy (只有接口的 mock 用 java.lang.reflect.Proxy，其余仍生成子类)
+     */
+    public static final String MAKER = "sogou.mockito.maker";
+
+    /**
+     * 只弱引用生成的 mock 类，某个类型的 mock 全部被回收之后 mock 类可以被卸载，设置之后也会启用 SogouMockMaker 自己的类生成
+     */
+    public static final String UNLOADABLE_CLASSES = "sogou.mockito.unloadableClasses";
+
+    /**
+     * mock 类清单文件，测试开始时在后台预先准备清单中的 mock 类，JVM 退出时把本次用到的 mock 类合并写回清单，
+     * 设置之后也会启用 SogouMockMaker 自己的类生成
+     */
+    public static final String PREWARM = "sogou.mockito.prewarm";
+
+    private static final int DEFAULT_LOCATION_SAMPLING = 64;
+
+    private MakerSettings() {
+    }
+
+    public static Path cacheDir() {
+        String dir = System.getProperty(CACHE_DIR);
+        return dir == null || dir.isEmpty() ? null : Paths.get(dir);
+    }
+
+    public static Path prewarmList() {
+        String list = System.getProperty(PREWARM);
+        return list == null || list.isEmpty() ? null : Paths.get(list);
+    }
+
+    public static LocationMode locationMode() {
+        String mode = System.getProperty(LOCATION, "eager");
+        try {
+            return LocationMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + LOCATION + ": " + mode + ", expected eager, lazy or sampled", e);
+        }
+    }
+
+    public static int locationSampling() {
+        return Math.max(1, Integer.getInteger(LOCATION_SAMPLING, DEFAULT_LOCATION_SAMPLING));
+    }
+
+    public static boolean jfrEvents() {
+        return Boolean.getBoolean(JFR);
+    }
+
+    public static boolean phaseTiming() {
+        return Boolean.getBoolean(PHASE_TIMING);
+    }
+
+    public static boolean unloadableClasses() {
+        return Boolean.getBoolean(UNLOADABLE_CLASSES);
+    }
+
+    public static boolean proxyInterfaces() {
+        String maker = System.getProperty(MAKER, "subclass").trim();
+        if (maker.equalsIgnoreCase("proxy")) {
+            return true;
+        }
+        if (maker.equalsIgnoreCase("subclass")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid " + MAKER + ": " + maker + ", expected subclass or proxy");
+    }
+
+    public enum LocationMode {
+        EAGER, LAZY, SAMPLED
+    }
+}
@@ -0,0 +1,58 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个 mock 类及其辅助类的字节码，可以在任意 JVM 里重新定义成类
+ */
+public final class MockClassBytes {
+
+    private final String name;
+    private final Map<String, byte[]> types;
+
+    public MockClassBytes(String name, Map<String, byte[]> types) {
+        if (!types.containsKey(name)) {
+            throw new IllegalArgumentException("Missing bytecode of " + name);
+        }
+        this.name = name;
+        this.types = Collections.unmodifiableMap(new LinkedHashMap<>(types));
+    }
+
+    /**
+     * mock 类的全名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 类名到字节码，包括 mock 类本身和 ByteBuddy 生成的辅助类
+     */
+    public Map<String, byte[]> getTypes() {
+        return types;
+    }
+
+    /**
+     * 在一个新的类加载器里定义这些类，父加载器能同时看到被 mock 的类型和 MockDispatcher
+     */
+    public Class<?> define(MockClassKey key) {
+        Class<?>[] visible = new Class<?>[key.getExtraInterfaces().size() + 2];
+        visible[0] = key.getTypeToMock();
+        visible[1] = MockDispatcher.class;
+        for (int i = 0; i < key.getExtraInterfaces().size(); i++) {
+            visible[i + 2] = key.getExtraInterfaces().get(i);
+        }
+        ClassLoader parent = new MultipleParentClassLoader.Builder().append(visible).build();
+        ClassLoader loader = new ByteArrayClassLoader(parent, types);
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot define mock class " + name, e);
+        }
+    }
+}
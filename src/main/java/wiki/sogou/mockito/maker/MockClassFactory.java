@@ -0,0 +1,185 @@
+package wiki.sogou.mockito.maker;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * 按 MockClassKey 提供 mock 类：依次查内存、预生成的类、磁盘缓存，都没有时才生成字节码
+ * <p>
+ * 每个 mock 类定义在自己的类加载器里。unloadable 时内存里只保存 mock 类的弱引用，并且挂在被 mock 类型自己的 ClassValue 上，
+ * 缓存不强引用被 mock 的类型；某个类型的 mock 全部被回收之后，mock 类连同它的类加载器可以被卸载，再次 mock 时重新定义
+ */
+public class MockClassFactory {
+
+    /**
+     * 类型或者它的父类是否声明了可以被覆盖的包私有方法
+     */
+    private static final ClassValue<Boolean> PACKAGE_PRIVATE_METHODS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    int modifiers = method.getModifiers();
+                    if ((modifiers & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL)) == 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    };
+
+    private final MockClassGenerator generator;
+    private final ConcurrentMap<MockClassKey, Class<?>> classes = new ConcurrentHashMap<>();
+    private final ClassValue<ConcurrentMap<List<Class<?>>, ClassReference>> weakClasses =
+            new ClassValue<ConcurrentMap<List<Class<?>>, ClassReference>>() {
+                @Override
+                protected ConcurrentMap<List<Class<?>>, ClassReference> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+    private final ReferenceQueue<Class<?>> collected = new ReferenceQueue<>();
+    /**
+     * 所有未被清理的弱引用，保证被 mock 的类型先被回收时弱引用也能进入队列
+     */
+    private final Set<ClassReference> references = ConcurrentHashMap.newKeySet();
+    private final PrecompiledMockClasses precompiled;
+    private final DiskMockClassCache diskCache;
+    private final boolean unloadable;
+    private final Consumer<MockClassKey> definitions;
+
+    /**
+     * @param precompiled classpath 上预生成的 mock 类，可以为 null
+     * @param diskCache   磁盘缓存，可以为 null
+     */
+    public MockClassFactory(PrecompiledMockClasses precompiled, DiskMockClassCache diskCache) {
+        this(precompiled, diskCache, false);
+    }
+
+    /**
+     * @param precompiled classpath 上预生成的 mock 类，可以为 null
+     * @param diskCache   磁盘缓存，可以为 null
+     * @param unloadable  是否只弱引用生成的 mock 类
+     */
+    public MockClassFactory(PrecompiledMockClasses precompiled, DiskMockClassCache diskCache, boolean unloadable) {
+        this(precompiled, diskCache, unloadable, null);
+    }
+
+    /**
+     * @param precompiled classpath 上预生成的 mock 类，可以为 null
+     * @param diskCache   磁盘缓存，可以为 null
+     * @param unloadable  是否只弱引用生成的 mock 类
+     * @param definitions 每定义一个 mock 类时通知，可以为 null
+     */
+    public MockClassFactory(PrecompiledMockClasses precompiled, DiskMockClassCache diskCache, boolean unloadable,
+                            Consumer<MockClassKey> definitions) {
+        this(precompiled, diskCache, unloadable, definitions, new MockClassGenerator());
+    }
+
+    MockClassFactory(PrecompiledMockClasses precompiled, DiskMockClassCache diskCache, boolean unloadable,
+                     Consumer<MockClassKey> definitions, MockClassGenerator generator) {
+        this.generator = generator;
+        this.precompiled = precompiled;
+        this.diskCache = diskCache;
+        this.unloadable = unloadable;
+        this.definitions = definitions;
+    }
+
+    /**
+     * 是否能为这个类型生成 mock 类，只支持公开的、非 final 的类和接口，并且类型及其父类不能声明可覆盖的包私有方法：
+     * mock 类定义在自己的包和类加载器里，覆盖不了这些方法，调用会执行真实代码，打桩也会落到上一次调用的方法上
+     */
+    public static boolean canGenerate(Class<?> type) {
+        return Modifier.isPublic(type.getModifiers())
+                && !Modifier.isFinal(type.getModifiers())
+                && !type.isArray()
+                && !type.isPrimitive()
+                && !PACKAGE_PRIVATE_METHODS.get(type);
+    }
+
+    public Class<?> mockClass(MockClassKey key) {
+        if (!unloadable) {
+            return classes.computeIfAbsent(key, this::define);
+        }
+        expungeCollected();
+        ConcurrentMap<List<Class<?>>, ClassReference> byExtraInterfaces = weakClasses.get(key.getTypeToMock());
+        ClassReference reference = byExtraInterfaces.get(key.getExtraInterfaces());
+        Class<?> mockClass = reference == null ? null : reference.get();
+        if (mockClass != null) {
+            return mockClass;
+        }
+        Class<?>[] result = new Class<?>[1];
+        byExtraInterfaces.compute(key.getExtraInterfaces(), (extraInterfaces, current) -> {
+            Class<?> existing = current == null ? null : current.get();
+            if (existing != null) {
+                result[0] = existing;
+                return current;
+            }
+            result[0] = define(key);
+            ClassReference created = new ClassReference(byExtraInterfaces, extraInterfaces, result[0], collected);
+            references.add(created);
+            return created;
+        });
+        return result[0];
+    }
+
+    /**
+     * 当前保存在内存里的 mock 类数量，unloadable 时不包括已经被回收的
+     */
+    public int size() {
+        if (!unloadable) {
+            return classes.size();
+        }
+        expungeCollected();
+        return references.size();
+    }
+
+    private void expungeCollected() {
+        ClassReference reference;
+        while ((reference = (ClassReference) collected.poll()) != null) {
+            reference.owner.remove(reference.extraInterfaces, reference);
+            references.remove(reference);
+        }
+    }
+
+    private Class<?> define(MockClassKey key) {
+        MockClassBytes bytes = precompiled == null ? null : precompiled.load(key);
+        if (bytes == null && diskCache != null) {
+            bytes = diskCache.load(key);
+        }
+        if (bytes == null) {
+            bytes = generator.generate(key);
+            if (diskCache != null) {
+                diskCache.store(key, bytes);
+            }
+        }
+        Class<?> mockClass = bytes.define(key);
+        if (definitions != null) {
+            definitions.accept(key);
+        }
+        return mockClass;
+    }
+
+    /**
+     * 被回收后从所在的 map 里删除自己；只引用额外接口和 map 本身，不引用被 mock 的类型
+     */
+    private static final class ClassReference extends WeakReference<Class<?>> {
+
+        private final ConcurrentMap<List<Class<?>>, ClassReference> owner;
+        private final List<Class<?>> extraInterfaces;
+
+        ClassReference(ConcurrentMap<List<Class<?>>, ClassReference> owner, List<Class<?>> extraInterfaces,
+                       Class<?> mockClass, ReferenceQueue<Class<?>> queue) {
+            super(mockClass, queue);
+            this.owner = owner;
+            this.extraInterfaces = extraInterfaces;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package wiki.sogou.mockito.maker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MockClassBytes 的二进制格式，磁盘缓存和预生成的 mock 类共用
+ */
+final class MockClassFormat {
+
+    static final String EXTENSION = ".mockclass";
+
+    private static final int MAGIC = 0x534D4343;
+
+    private MockClassFormat() {
+    }
+
+    static String fileName(MockClassKey key) {
+        return key.getDigest() + EXTENSION;
+    }
+
+    /**
+     * @return 格式不对时返回 null
+     */
+    static MockClassBytes read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            return null;
+        }
+        String name = in.readUTF();
+        int count = in.readInt();
+        Map<String, byte[]> types = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String typeName = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            types.put(typeName, bytes);
+        }
+        return types.containsKey(name) ? new MockClassBytes(name, types) : null;
+    }
+
+    static void write(MockClassBytes bytes, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeUTF(bytes.getName());
+        out.writeInt(bytes.getTypes().size());
+        for (Map.Entry<String, byte[]> entry : bytes.getTypes().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,66 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.MethodDelegation;
+import org.mockito.invocation.MockHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.isEquals;
+import static net.bytebuddy.matcher.ElementMatchers.isFinalizer;
+import static net.bytebuddy.matcher.ElementMatchers.isHashCode;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * 用 ByteBuddy 生成 mock 子类的字节码
+ * <p>
+ * 类名只由 MockClassKey 决定，所有方法都委托给 MockDispatcher，handler 保存在实例字段里，
+ * 这样生成结果不依赖当前 JVM 的状态，可以被缓存和复用
+ */
+public class MockClassGenerator {
+
+    static final String CODEGEN_PACKAGE = "wiki.sogou.mockito.codegen";
+
+    private final ByteBuddy byteBuddy = new ByteBuddy().with(TypeValidation.DISABLED);
+
+    public static String className(MockClassKey key) {
+        return CODEGEN_PACKAGE + "." + key.getTypeToMock().getName() + "$SogouMock$" + key.getDigest();
+    }
+
+    public MockClassBytes generate(MockClassKey key) {
+        Class<?> type = key.getTypeToMock();
+        DynamicType.Builder<?> builder = type.isInterface()
+                ? byteBuddy.subclass(Object.class).implement(type)
+                : byteBuddy.subclass(type);
+
+        // ByteBuddy 优先使用后注册的规则
+        DynamicType.Unloaded<?> unloaded = builder
+                .name(className(key))
+                .implement(key.getExtraInterfaces())
+                .method(not(isFinalizer()).and(isAbstract()))
+                .intercept(MethodDelegation.to(MockDispatcher.ForAbstract.class))
+                .method(not(isFinalizer()).and(not(isAbstract())))
+                .intercept(MethodDelegation.to(MockDispatcher.ForRealMethod.class))
+                .method(isHashCode())
+                .intercept(MethodDelegation.to(MockDispatcher.ForHashCode.class))
+                .method(isEquals())
+                .intercept(MethodDelegation.to(MockDispatcher.ForEquals.class))
+                .defineField("mockHandler", MockHandler.class, Visibility.PRIVATE)
+                .implement(HandlerAccess.class)
+                .intercept(FieldAccessor.ofBeanProperty())
+                .make();
+
+        Map<String, byte[]> types = new LinkedHashMap<>();
+        for (Map.Entry<TypeDescription, byte[]> entry : unloaded.getAllTypes().entrySet()) {
+            types.put(entry.getKey().getName(), entry.getValue());
+        }
+        return new MockClassBytes(unloaded.getTypeDescription().getName(), types);
+    }
+}
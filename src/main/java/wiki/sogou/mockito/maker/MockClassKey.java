@@ -0,0 +1,147 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.Mockito;
+import org.mockito.mock.MockCreationSettings;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一个 mock 类的缓存 key，由被 mock 的类型、额外接口、类型的方法签名以及 Mockito/生成器/JDK 版本组成
+ * <p>
+ * 方法签名参与计算，被 mock 的类型改变之后旧的缓存自然失效
+ */
+public final class MockClassKey {
+
+    /**
+     * 生成的字节码格式变化时需要增加这个版本号
+     */
+    static final int GENERATOR_VERSION = 1;
+
+    private static final String MOCKITO_VERSION = mockitoVersion();
+
+    private final Class<?> typeToMock;
+    private final List<Class<?>> extraInterfaces;
+    private volatile String digest;
+
+    private MockClassKey(Class<?> typeToMock, List<Class<?>> extraInterfaces) {
+        this.typeToMock = typeToMock;
+        this.extraInterfaces = extraInterfaces;
+    }
+
+    public static MockClassKey of(MockCreationSettings<?> settings) {
+        return of(settings.getTypeToMock(), settings.getExtraInterfaces());
+    }
+
+    public static MockClassKey of(Class<?> typeToMock, Collection<Class<?>> extraInterfaces) {
+        List<Class<?>> sorted = new ArrayList<>(extraInterfaces);
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return new MockClassKey(typeToMock, Collections.unmodifiableList(sorted));
+    }
+
+    public Class<?> getTypeToMock() {
+        return typeToMock;
+    }
+
+    public List<Class<?>> getExtraInterfaces() {
+        return extraInterfaces;
+    }
+
+    /**
+     * 十六进制的摘要，用作生成类的名字后缀和缓存文件名，第一次使用时才计算
+     */
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            result = digest(typeToMock, extraInterfaces);
+            digest = result;
+        }
+        return result;
+    }
+
+    private static String digest(Class<?> typeToMock, List<Class<?>> extraInterfaces) {
+        StringBuilder sb = new StringBuilder()
+                .append(GENERATOR_VERSION).append('|')
+                .append(MOCKITO_VERSION).append('|')
+                .append(System.getProperty("java.specification.version")).append('|');
+        appendShape(sb, typeToMock);
+        for (Class<?> extraInterface : extraInterfaces) {
+            appendShape(sb, extraInterface);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendShape(StringBuilder sb, Class<?> type) {
+        sb.append(type.getName()).append('{');
+        List<String> signatures = new ArrayList<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            addSignatures(signatures, current);
+            for (Class<?> itf : current.getInterfaces()) {
+                addSignatures(signatures, itf);
+            }
+        }
+        Collections.sort(signatures);
+        for (String signature : signatures) {
+            sb.append(signature).append(';');
+        }
+        sb.append('}');
+    }
+
+    private static void addSignatures(List<String> signatures, Class<?> type) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            signatures.add(type.getName() + '.' + method.getName()
+                    + Arrays.toString(method.getParameterTypes()) + method.getReturnType().getName()
+                    + ':' + method.getModifiers());
+        }
+        for (Class<?> itf : type.getInterfaces()) {
+            addSignatures(signatures, itf);
+        }
+    }
+
+    private static String mockitoVersion() {
+        String version = Mockito.class.getPackage().getImplementationVersion();
+        return version == null ? "unknown" : version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MockClassKey)) {
+            return false;
+        }
+        MockClassKey that = (MockClassKey) o;
+        return typeToMock == that.typeToMock && extraInterfaces.equals(that.extraInterfaces);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * typeToMock.hashCode() + extraInterfaces.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return typeToMock.getName() + extraInterfaces;
+    }
+}
@@ -0,0 +1,434 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.jar.asm.AnnotationVisitor;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.FieldVisitor;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.utility.OpenedClassReader;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 构建时预生成 mock 类
+ * <p>
+ * 扫描编译好的测试类，收集 @Mock/@Spy 字段的类型和 mock(X.class)/spy(X.class) 调用中的类型，
+ * 为它们生成 mock 类并写到输出目录的 META-INF/sogou-mockito 下，随测试类一起打包。
+ * 运行时 SogouMockMaker 发现这些资源后直接定义类，不再生成字节码
+ * <p>
+ * 用法: MockClassPrecompiler &lt;测试类目录&gt; [输出目录，默认与测试类目录相同]
+ */
+public class MockClassPrecompiler {
+
+    private static final String MOCK = "Lorg/mockito/Mock;";
+    private static final String SPY = "Lorg/mockito/Spy;";
+    private static final String MOCKITO = "org/mockito/Mockito";
+    private static final String CLASS = "Ljava/lang/Class;";
+
+    private final Set<String> typeNames = new TreeSet<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: MockClassPrecompiler <test classes dir> [output dir]");
+            System.exit(1);
+        }
+        Path classes = Paths.get(args[0]);
+        Path output = args.length > 1 ? Paths.get(args[1]) : classes;
+        MockClassPrecompiler precompiler = new MockClassPrecompiler();
+        precompiler.scan(classes);
+        int count = precompiler.generate(classes, output);
+        System.out.println("Precompiled " + count + " mock classes into " + output.resolve(PrecompiledMockClasses.RESOURCE_DIR));
+    }
+
+    /**
+     * 扫描目录下所有 class 文件，收集需要 mock 的类型
+     */
+    public void scan(Path classes) throws IOException {
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList())) {
+                OpenedClassReader.of(Files.readAllBytes(file)).accept(new Scanner(), ClassReader.EXPAND_FRAMES);
+            }
+        }
+    }
+
+    public Set<String> getTypeNames() {
+        return Collections.unmodifiableSet(typeNames);
+    }
+
+    /**
+     * 为收集到的类型生成 mock 类，无法加载或无法 mock 的类型跳过
+     *
+     * @return 生成的 mock 类数量
+     */
+    public int generate(Path classes, Path output) throws IOException {
+        Path dir = output.resolve(PrecompiledMockClasses.RESOURCE_DIR);
+        Files.createDirectories(dir);
+        MockClassGenerator generator = new MockClassGenerator();
+        Set<String> generated = new TreeSet<>();
+        ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, parent)) {
+            for (String typeName : typeNames) {
+                Class<?> type;
+                try {
+                    type = Class.forName(typeName, false, loader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    continue;
+                }
+                if (!MockClassFactory.canGenerate(type)) {
+                    continue;
+                }
+                MockClassKey key = MockClassKey.of(type, Collections.emptyList());
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dir.resolve(MockClassFormat.fileName(key))))) {
+                    MockClassFormat.write(generator.generate(key), out);
+                }
+                generated.add(typeName);
+            }
+        }
+        Files.write(output.resolve(PrecompiledMockClasses.INDEX),
+                String.join("\n", generated).getBytes(StandardCharsets.UTF_8));
+        return generated.size();
+    }
+
+    private void addType(Type type) {
+        if (type.getSort() == Type.OBJECT) {
+            typeNames.add(type.getClassName());
+        }
+    }
+
+    private class Scanner extends ClassVisitor {
+
+        Scanner() {
+            super(OpenedClassReader.ASM_API);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            return new FieldVisitor(OpenedClassReader.ASM_API) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                    if (MOCK.equals(annotation) || SPY.equals(annotation)) {
+                        addType(Type.getType(descriptor));
+                    }
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            return new CallSites();
+        }
+    }
+
+    /**
+     * 找出 Mockito.mock/spy(X.class, ...) 调用的第一个参数
+     * <p>
+     * 按指令的出入栈数量跟踪操作数栈深度 (跳转目标处以展开的 frame 为准)，记下每个类常量入栈后的深度，
+     * 栈回落到它下面时说明常量已经被别的指令用掉。调用 mock/spy 时，Class 参数所在深度上还没被用掉的类常量就是要 mock 的类型，
+     * 中间的 withSettings()、extraInterfaces(Y.class)、name 等参数都不影响。深度未知 (无条件跳转之后、还没遇到 frame) 时不收集
+     */
+    private class CallSites extends MethodVisitor {
+
+        /**
+         * 还在栈上的类常量，后入栈的在前
+         */
+        private final Deque<ClassConstant> constants = new ArrayDeque<>();
+        private int depth;
+
+        CallSites() {
+            super(OpenedClassReader.ASM_API);
+        }
+
+        @Override
+        public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            depth = 0;
+            for (int i = 0; i < numStack; i++) {
+                depth += stack[i] == Opcodes.LONG || stack[i] == Opcodes.DOUBLE ? 2 : 1;
+            }
+            pop(0);
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            if (value instanceof Type && ((Type) value).getSort() == Type.OBJECT && depth >= 0) {
+                constants.push(new ClassConstant((Type) value, depth + 1));
+            }
+            push(value instanceof Long || value instanceof Double ? 2 : 1);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String method, String methodDescriptor, boolean isInterface) {
+            Type[] arguments = Type.getArgumentTypes(methodDescriptor);
+            int size = size(arguments);
+            if (opcode == Opcodes.INVOKESTATIC && MOCKITO.equals(owner)
+                    && ("mock".equals(method) || "spy".equals(method))
+                    && arguments.length > 0 && CLASS.equals(arguments[0].getDescriptor())) {
+                for (ClassConstant constant : constants) {
+                    if (constant.depth == depth - size + 1) {
+                        addType(constant.type);
+                        break;
+                    }
+                }
+            }
+            pop(size + (opcode == Opcodes.INVOKESTATIC ? 0 : 1));
+            push(Type.getReturnType(methodDescriptor).getSize());
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle handle, Object... arguments) {
+            pop(size(Type.getArgumentTypes(descriptor)));
+            push(Type.getReturnType(descriptor).getSize());
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            if (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN || opcode == Opcodes.ATHROW) {
+                unknown();
+                return;
+            }
+            int delta = insnDelta(opcode);
+            if (delta < 0) {
+                pop(-delta);
+            } else {
+                push(delta);
+            }
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            if (opcode != Opcodes.NEWARRAY) {
+                push(1);
+            }
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            if (opcode == Opcodes.RET) {
+                unknown();
+            } else if (opcode >= Opcodes.ISTORE) {
+                pop(opcode == Opcodes.LSTORE || opcode == Opcodes.DSTORE ? 2 : 1);
+            } else {
+                push(opcode == Opcodes.LLOAD || opcode == Opcodes.DLOAD ? 2 : 1);
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            if (opcode == Opcodes.NEW) {
+                push(1);
+            } else {
+                // ANEWARRAY/CHECKCAST/INSTANCEOF 用掉栈顶再压入结果
+                pop(1);
+                push(1);
+            }
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            int size = Type.getType(descriptor).getSize();
+            if (opcode == Opcodes.GETSTATIC) {
+                push(size);
+            } else if (opcode == Opcodes.PUTSTATIC) {
+                pop(size);
+            } else if (opcode == Opcodes.GETFIELD) {
+                pop(1);
+                push(size);
+            } else {
+                pop(size + 1);
+            }
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            if (opcode == Opcodes.GOTO || opcode == Opcodes.JSR) {
+                unknown();
+            } else if (opcode >= Opcodes.IF_ICMPEQ && opcode <= Opcodes.IF_ACMPNE) {
+                pop(2);
+            } else {
+                pop(1);
+            }
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            unknown();
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            unknown();
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            pop(numDimensions);
+            push(1);
+        }
+
+        private void push(int size) {
+            if (depth >= 0) {
+                depth += size;
+            }
+        }
+
+        /**
+         * 出栈并丢掉已经不在栈上的类常量
+         */
+        private void pop(int size) {
+            if (depth < 0) {
+                return;
+            }
+            depth = Math.max(0, depth - size);
+            for (Iterator<ClassConstant> it = constants.iterator(); it.hasNext(); ) {
+                if (it.next().depth > depth) {
+                    it.remove();
+                }
+            }
+        }
+
+        private void unknown() {
+            depth = -1;
+            constants.clear();
+        }
+
+        private int size(Type[] arguments) {
+            int size = 0;
+            for (Type argument : arguments) {
+                size += argument.getSize();
+            }
+            return size;
+        }
+
+        /**
+         * 没有操作数的指令对栈深度的影响
+         */
+        private int insnDelta(int opcode) {
+            switch (opcode) {
+                case Opcodes.ACONST_NULL:
+                case Opcodes.ICONST_M1:
+                case Opcodes.ICONST_0:
+                case Opcodes.ICONST_1:
+                case Opcodes.ICONST_2:
+                case Opcodes.ICONST_3:
+                case Opcodes.ICONST_4:
+                case Opcodes.ICONST_5:
+                case Opcodes.FCONST_0:
+                case Opcodes.FCONST_1:
+                case Opcodes.FCONST_2:
+                case Opcodes.DUP:
+                case Opcodes.DUP_X1:
+                case Opcodes.DUP_X2:
+                case Opcodes.I2L:
+                case Opcodes.I2D:
+                case Opcodes.F2L:
+                case Opcodes.F2D:
+                    return 1;
+                case Opcodes.LCONST_0:
+                case Opcodes.LCONST_1:
+                case Opcodes.DCONST_0:
+                case Opcodes.DCONST_1:
+                case Opcodes.DUP2:
+                case Opcodes.DUP2_X1:
+                case Opcodes.DUP2_X2:
+                    return 2;
+                case Opcodes.IASTORE:
+                case Opcodes.FASTORE:
+                case Opcodes.AASTORE:
+                case Opcodes.BASTORE:
+                case Opcodes.CASTORE:
+                case Opcodes.SASTORE:
+                case Opcodes.LCMP:
+                case Opcodes.DCMPL:
+                case Opcodes.DCMPG:
+                    return -3;
+                case Opcodes.LASTORE:
+                case Opcodes.DASTORE:
+                    return -4;
+                case Opcodes.POP2:
+                case Opcodes.LADD:
+                case Opcodes.LSUB:
+                case Opcodes.LMUL:
+                case Opcodes.LDIV:
+                case Opcodes.LREM:
+                case Opcodes.LAND:
+                case Opcodes.LOR:
+                case Opcodes.LXOR:
+                case Opcodes.DADD:
+                case Opcodes.DSUB:
+                case Opcodes.DMUL:
+                case Opcodes.DDIV:
+                case Opcodes.DREM:
+                    return -2;
+                case Opcodes.IALOAD:
+                case Opcodes.FALOAD:
+                case Opcodes.AALOAD:
+                case Opcodes.BALOAD:
+                case Opcodes.CALOAD:
+                case Opcodes.SALOAD:
+                case Opcodes.POP:
+                case Opcodes.IADD:
+                case Opcodes.ISUB:
+                case Opcodes.IMUL:
+                case Opcodes.IDIV:
+                case Opcodes.IREM:
+                case Opcodes.IAND:
+                case Opcodes.IOR:
+                case Opcodes.IXOR:
+                case Opcodes.ISHL:
+                case Opcodes.ISHR:
+                case Opcodes.IUSHR:
+                case Opcodes.LSHL:
+                case Opcodes.LSHR:
+                case Opcodes.LUSHR:
+                case Opcodes.FADD:
+                case Opcodes.FSUB:
+                case Opcodes.FMUL:
+                case Opcodes.FDIV:
+                case Opcodes.FREM:
+                case Opcodes.L2I:
+                case Opcodes.L2F:
+                case Opcodes.D2I:
+                case Opcodes.D2F:
+                case Opcodes.FCMPL:
+                case Opcodes.FCMPG:
+                case Opcodes.MONITORENTER:
+                case Opcodes.MONITOREXIT:
+                    return -1;
+                default:
+                    // NOP、SWAP、取反、不改变大小的转换、ARRAYLENGTH，LALOAD/DALOAD 用掉两个压入两个
+                    return 0;
+            }
+        }
+    }
+
+    private static final class ClassConstant {
+
+        private final Type type;
+        private final int depth;
+
+        ClassConstant(Type type, int depth) {
+            this.type = type;
+            this.depth = depth;
+        }
+    }
+}
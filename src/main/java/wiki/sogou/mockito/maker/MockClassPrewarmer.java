@@ -0,0 +1,179 @@
+package wiki.sogou.mockito.maker;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试开始时在后台线程池里并行准备清单中的 mock 类，测试线程第一次 mock 这些类型时直接拿到已经定义好的类
+ * <p>
+ * 清单文件每行一个 mock 类：被 mock 的类型名，后面可以跟空格分隔的额外接口名，# 开头的行是注释。
+ * 清单可以手写，也可以由上一次运行记录：本次运行中 MockClassFactory 定义过的 mock 类在 JVM 退出时合并写回清单。
+ * 找不到或者不能生成的类型直接跳过，准备失败的类留给测试线程重新生成并报错。
+ * 准备好的类在第一次被用到之前由这里强引用，unloadable 模式下不会在用到之前就被回收
+ */
+public class MockClassPrewarmer {
+
+    private final Path list;
+    private final Set<String> listed = new TreeSet<>();
+    private final Set<String> recorded = ConcurrentHashMap.newKeySet();
+    /**
+     * 还没有被用到的清单中的 mock 类，准备好之前值为 PENDING
+     */
+    private final ConcurrentMap<MockClassKey, Object> prepared = new ConcurrentHashMap<>();
+
+    private static final Object PENDING = new Object();
+
+    public MockClassPrewarmer(Path list) {
+        this.list = list;
+    }
+
+    /**
+     * 读取清单并把其中的 mock 类提交给后台线程池，返回提交的数量；同时注册 JVM 退出时写回清单
+     */
+    public int start(MockClassFactory factory, ClassLoader loader) {
+        List<MockClassKey> keys = new ArrayList<>();
+        List<String> lines = readList();
+        synchronized (this) {
+            listed.addAll(lines);
+        }
+        for (String line : lines) {
+            MockClassKey key = parse(line, loader);
+            if (key != null) {
+                keys.add(key);
+                prepared.put(key, PENDING);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writeList, "sogou-mockito-prewarm-writer"));
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(keys.size(), Runtime.getRuntime().availableProcessors()), daemonThreads());
+        for (MockClassKey key : keys) {
+            executor.execute(() -> {
+                try {
+                    // 已经被用到的不再保留
+                    prepared.replace(key, PENDING, factory.mockClass(key));
+                } catch (RuntimeException | LinkageError ignored) {
+                    // 测试线程用到这个类型时会重新生成并报告错误
+                }
+            });
+        }
+        executor.shutdown();
+        return keys.size();
+    }
+
+    /**
+     * 测试线程用到了这个 mock 类，不再需要替它保留
+     */
+    public void used(MockClassKey key) {
+        if (!prepared.isEmpty()) {
+            prepared.remove(key);
+        }
+    }
+
+    /**
+     * 记录本次运行定义过的 mock 类
+     */
+    public void record(MockClassKey key) {
+        recorded.add(line(key));
+    }
+
+    static String line(MockClassKey key) {
+        StringBuilder line = new StringBuilder(key.getTypeToMock().getName());
+        for (Class<?> extraInterface : key.getExtraInterfaces()) {
+            line.append(' ').append(extraInterface.getName());
+        }
+        return line.toString();
+    }
+
+    static MockClassKey parse(String line, ClassLoader loader) {
+        String[] names = line.trim().split("\\s+");
+        try {
+            Class<?> type = Class.forName(names[0], false, loader);
+            if (!MockClassFactory.canGenerate(type)) {
+                return null;
+            }
+            List<Class<?>> extraInterfaces = new ArrayList<>();
+            for (int i = 1; i < names.length; i++) {
+                Class<?> extraInterface = Class.forName(names[i], false, loader);
+                if (!extraInterface.isInterface() || !Modifier.isPublic(extraInterface.getModifiers())) {
+                    return null;
+                }
+                extraInterfaces.add(extraInterface);
+            }
+            return MockClassKey.of(type, extraInterfaces);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private List<String> readList() {
+        if (!Files.isRegularFile(list)) {
+            return Collections.emptyList();
+        }
+        List<String> lines = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(list, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException ignored) {
+            // 读不到清单只是不预先准备
+        }
+        return lines;
+    }
+
+    /**
+     * 清单没有变化时不写
+     */
+    synchronized void writeList() {
+        if (!listed.addAll(recorded)) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            Path directory = list.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, list.getFileName().toString(), ".tmp");
+            Files.write(tmp, listed, StandardCharsets.UTF_8);
+            Files.move(tmp, list, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+        } catch (IOException ignored) {
+            // 写不回清单只是下次少准备一些类
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sogou-mockito-prewarm-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
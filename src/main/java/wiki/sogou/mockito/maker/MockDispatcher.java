@@ -0,0 +1,160 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.Argument;
+import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.SuperCall;
+import net.bytebuddy.implementation.bind.annotation.This;
+import org.mockito.Mockito;
+import org.mockito.exceptions.base.MockitoException;
+import org.mockito.internal.invocation.DefaultInvocationFactory;
+import org.mockito.internal.invocation.RealMethod;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationFactory;
+import org.mockito.invocation.Location;
+import org.mockito.invocation.MockHandler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+
+/**
+ * 生成的 mock 类把方法调用委托到这里，再转交给 mock 自己的 MockHandler
+ * <p>
+ * 生成的字节码只引用这个类的静态方法，不引用任何随机命名的类，所以字节码可以落盘后在别的 JVM 里重新加载
+ */
+public final class MockDispatcher {
+
+    private static final InvocationFactory INVOCATION_FACTORY = Mockito.framework().getInvocationFactory();
+
+    private static final MakerSettings.LocationMode LOCATION_MODE = MakerSettings.locationMode();
+
+    private static final int LOCATION_SAMPLING = MakerSettings.locationSampling();
+
+    private MockDispatcher() {
+    }
+
+    static Object dispatch(Object mock, Method method, Object[] args, InvocationFactory.RealMethodBehavior<?> realMethod)
+            throws Throwable {
+        return dispatch(((HandlerAccess) mock).getMockHandler(), mock, method, args, realMethod);
+    }
+
+    static Object dispatch(MockHandler<?> handler, Object mock, Method method, Object[] args,
+                           InvocationFactory.RealMethodBehavior<?> realMethod) throws Throwable {
+        if (handler == null) {
+            // 构造函数执行期间 handler 还没有设置，此时按真实对象处理
+            return realMethod == null ? defaultValue(method.getReturnType()) : realMethod.call();
+        }
+        if (LOCATION_MODE != MakerSettings.LocationMode.EAGER) {
+            // 公开的 InvocationFactory 总是立即记录位置，只能用 Mockito 内部带 Location 参数的重载
+            Location location = LOCATION_MODE == MakerSettings.LocationMode.LAZY
+                    ? InvocationLocations.lazy() : InvocationLocations.sampled(LOCATION_SAMPLING);
+            RealMethod real = realMethod == null ? RealMethod.IsIllegal.INSTANCE : new BehaviorRealMethod(realMethod);
+            return handler.handle(DefaultInvocationFactory.createInvocation(
+                    mock, method, args, real, handler.getMockSettings(), location));
+        }
+        if (realMethod == null) {
+            realMethod = () -> {
+                throw new MockitoException("Cannot call abstract real method '" + method.getName() + "' on a mock");
+            };
+        }
+        Invocation invocation = INVOCATION_FACTORY.createInvocation(mock, handler.getMockSettings(), method, realMethod, args);
+        return handler.handle(invocation);
+    }
+
+    private static final class BehaviorRealMethod implements RealMethod {
+
+        private static final long serialVersionUID = 1L;
+
+        private final InvocationFactory.RealMethodBehavior<?> behavior;
+
+        BehaviorRealMethod(InvocationFactory.RealMethodBehavior<?> behavior) {
+            this.behavior = behavior;
+        }
+
+        @Override
+        public boolean isInvokable() {
+            return true;
+        }
+
+        @Override
+        public Object invoke() throws Throwable {
+            return behavior.call();
+        }
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\u0000';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    public static final class ForAbstract {
+
+        private ForAbstract() {
+        }
+
+        @RuntimeType
+        public static Object intercept(@This Object mock,
+                                       @Origin Method method,
+                                       @AllArguments Object[] args) throws Throwable {
+            return dispatch(mock, method, args, null);
+        }
+    }
+
+    public static final class ForRealMethod {
+
+        private ForRealMethod() {
+        }
+
+        @RuntimeType
+        public static Object intercept(@This Object mock,
+                                       @Origin Method method,
+                                       @AllArguments Object[] args,
+                                       @SuperCall Callable<?> superCall) throws Throwable {
+            return dispatch(mock, method, args, superCall::call);
+        }
+    }
+
+    public static final class ForHashCode {
+
+        private ForHashCode() {
+        }
+
+        public static int hashCode(@This Object mock) {
+            return System.identityHashCode(mock);
+        }
+    }
+
+    public static final class ForEquals {
+
+        private ForEquals() {
+        }
+
+        public static boolean equals(@This Object mock, @Argument(0) Object other) {
+            return mock == other;
+        }
+    }
+}
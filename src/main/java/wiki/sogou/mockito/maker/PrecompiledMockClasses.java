@@ -0,0 +1,48 @@
+package wiki.sogou.mockito.maker;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 构建时由 {@link MockClassPrecompiler} 生成、随测试类一起打包在 classpath 上的 mock 类
+ */
+public class PrecompiledMockClasses {
+
+    /**
+     * 预生成的 mock 类所在的资源目录
+     */
+    public static final String RESOURCE_DIR = "META-INF/sogou-mockito/";
+
+    /**
+     * 资源目录中的索引文件，每行一个预生成的类型名，存在即表示 classpath 上有预生成的 mock 类
+     */
+    public static final String INDEX = RESOURCE_DIR + "index";
+
+    private final ClassLoader classLoader;
+
+    public PrecompiledMockClasses(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public static PrecompiledMockClasses fromContext() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return new PrecompiledMockClasses(loader == null ? PrecompiledMockClasses.class.getClassLoader() : loader);
+    }
+
+    public boolean isPresent() {
+        return classLoader.getResource(INDEX) != null;
+    }
+
+    public MockClassBytes load(MockClassKey key) {
+        InputStream resource = classLoader.getResourceAsStream(RESOURCE_DIR + MockClassFormat.fileName(key));
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(resource)) {
+            return MockClassFormat.read(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.Answers;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+import org.mockito.mock.SerializableMode;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 用 java.lang.reflect.Proxy 实现只有接口的 mock，不生成字节码
+ * <p>
+ * 只用于不需要调用真实方法的接口 mock：spy、CALLS_REAL_METHODS 和可序列化的 mock 仍然走生成的子类。
+ * 接口的 default 方法在这里也按抽象方法处理
+ */
+final class ProxyMocks {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private ProxyMocks() {
+    }
+
+    static boolean supports(MockCreationSettings<?> settings) {
+        if (!settings.getTypeToMock().isInterface()
+                || settings.getSerializableMode() != SerializableMode.NONE
+                || settings.getSpiedInstance() != null
+                || settings.getDefaultAnswer() == Answers.CALLS_REAL_METHODS) {
+            return false;
+        }
+        ClassLoader loader = classLoader(settings);
+        if (!isVisible(settings.getTypeToMock(), loader)) {
+            return false;
+        }
+        for (Class<?> extraInterface : settings.getExtraInterfaces()) {
+            if (!extraInterface.isInterface() || !isVisible(extraInterface, loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static <T> T create(MockCreationSettings<T> settings, MockHandler<?> handler) {
+        Class<?>[] interfaces = new Class<?>[settings.getExtraInterfaces().size() + 1];
+        interfaces[0] = settings.getTypeToMock();
+        int i = 1;
+        for (Class<?> extraInterface : settings.getExtraInterfaces()) {
+            interfaces[i++] = extraInterface;
+        }
+        Object mock = Proxy.newProxyInstance(classLoader(settings), interfaces, new Dispatcher(handler));
+        return settings.getTypeToMock().cast(mock);
+    }
+
+    /**
+     * 不是这里创建的 mock 时返回 null
+     */
+    static Dispatcher dispatcherOf(Object mock) {
+        if (mock == null || !Proxy.isProxyClass(mock.getClass())) {
+            return null;
+        }
+        InvocationHandler invocationHandler = Proxy.getInvocationHandler(mock);
+        return invocationHandler instanceof Dispatcher ? (Dispatcher) invocationHandler : null;
+    }
+
+    /**
+     * JDK 接口在启动类加载器里，此时用这个类的加载器，它能同时看到 JDK 和 Mockito
+     */
+    private static ClassLoader classLoader(MockCreationSettings<?> settings) {
+        ClassLoader loader = settings.getTypeToMock().getClassLoader();
+        return loader == null ? ProxyMocks.class.getClassLoader() : loader;
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader loader) {
+        try {
+            return Class.forName(type.getName(), false, loader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    static final class Dispatcher implements InvocationHandler {
+
+        private volatile MockHandler<?> handler;
+
+        Dispatcher(MockHandler<?> handler) {
+            this.handler = handler;
+        }
+
+        MockHandler<?> getHandler() {
+            return handler;
+        }
+
+        void setHandler(MockHandler<?> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                // 与生成的子类一致，hashCode/equals 按对象身份，toString 交给 Mockito
+                if (method.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+            }
+            return MockDispatcher.dispatch(handler, proxy, method, args == null ? NO_ARGUMENTS : args, null);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package wiki.sogou.mockito.maker;
+
+import org.mockito.Mockito;
+import org.mockito.creation.instance.Instantiator;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+import org.mockito.mock.SerializableMode;
+import org.mockito.plugins.InstantiatorProvider2;
+import org.mockito.plugins.MockMaker;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+import wiki.sogou.mockito.counting.RecordingInvocationContainer;
+import wiki.sogou.mockito.jfr.MockEvents;
+import wiki.sogou.mockito.junit.PhaseClock;
+import wiki.sogou.mockito.junit.PhaseTimingHandler;
+
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+
+/**
+ * 通过 mockito-extensions/org.mockito.plugins.MockMaker 注册的 MockMaker
+ * <p>
+ * 配置了 {@link MakerSettings#CACHE_DIR}、非 eager 的 {@link MakerSettings#LOCATION}、{@link MakerSettings#UNLOADABLE_CLASSES}、
+ * {@link MakerSettings#PREWARM} 或者 classpath 上有预生成的 mock 类时，公开的非 final 类型由 MockClassFactory 提供 mock 类，其他情况交给 Mockito 默认的 MockMaker。
+ * {@link MakerSettings#MAKER} 为 proxy 时，只有接口的 mock 用 JDK 动态代理实现。
+ * 设置了 {@link MakerSettings#JFR} 时，所有 mock 的创建和调用都会发出 JFR 事件；
+ * 设置了 {@link MakerSettings#PHASE_TIMING} 时，向 PhaseTimingExtension 上报 mock 的创建、打桩和验证耗时。
+ * 用 CountingMocks 的设置创建的 mock 换上 RecordingInvocationContainer
+ */
+public class SogouMockMaker implements MockMaker {
+
+    /**
+     * Mockito 默认的 ObjenesisInstantiator 按类名缓存 instantiator，强引用每个 mock 类，
+     * 同名的 mock 类卸载后重新定义还会拿到旧类的 instantiator。这里用不带缓存的 Objenesis，
+     * instantiator 保存在 mock 类自己的 ClassValue 里，随 mock 类一起回收
+     */
+    private static final Objenesis OBJENESIS = new ObjenesisStd(false);
+
+    private static final ClassValue<ObjectInstantiator<?>> INSTANTIATORS = new ClassValue<ObjectInstantiator<?>>() {
+        @Override
+        protected ObjectInstantiator<?> computeValue(Class<?> type) {
+            return OBJENESIS.getInstantiatorOf(type);
+        }
+    };
+
+    private final MockClassFactory factory;
+    private final MockClassPrewarmer prewarmer;
+    private final boolean jfrEvents;
+    private final boolean phaseTiming;
+    private final boolean proxyInterfaces;
+
+    public SogouMockMaker() {
+        this.jfrEvents = MakerSettings.jfrEvents() && MockEvents.isAvailable();
+        this.phaseTiming = MakerSettings.phaseTiming();
+        this.proxyInterfaces = MakerSettings.proxyInterfaces();
+        Path cacheDir = MakerSettings.cacheDir();
+        PrecompiledMockClasses precompiled = PrecompiledMockClasses.fromContext();
+        boolean eagerLocation = MakerSettings.locationMode() == MakerSettings.LocationMode.EAGER;
+        boolean unloadable = MakerSettings.unloadableClasses();
+        Path prewarmList = MakerSettings.prewarmList();
+        if (cacheDir == null && !precompiled.isPresent() && eagerLocation && !unloadable && prewarmList == null) {
+            this.factory = null;
+            this.prewarmer = null;
+        } else if (prewarmList == null) {
+            this.factory = new MockClassFactory(precompiled.isPresent() ? precompiled : null,
+                    cacheDir == null ? null : new DiskMockClassCache(cacheDir), unloadable);
+            this.prewarmer = null;
+        } else {
+            this.prewarmer = new MockClassPrewarmer(prewarmList);
+            this.factory = new MockClassFactory(precompiled.isPresent() ? precompiled : null,
+                    cacheDir == null ? null : new DiskMockClassCache(cacheDir), unloadable, prewarmer::record);
+            prewarmer.start(factory, contextClassLoader());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T> T createMock(MockCreationSettings<T> settings, MockHandler mockHandler) {
+        MockHandler<?> handler = mockHandler;
+        RecordingInvocationContainer.install(handler);
+        if (phaseTiming) {
+            return timedCreateMock(settings, PhaseTimingHandler.wrap(handler));
+        }
+        return recordedCreateMock(settings, handler);
+    }
+
+    private <T> T timedCreateMock(MockCreationSettings<T> settings, MockHandler<?> handler) {
+        PhaseClock clock = PhaseClock.current();
+        if (clock == null) {
+            return recordedCreateMock(settings, handler);
+        }
+        long start = System.nanoTime();
+        T mock = recordedCreateMock(settings, handler);
+        clock.mockCreated(System.nanoTime() - start);
+        return mock;
+    }
+
+    private <T> T recordedCreateMock(MockCreationSettings<T> settings, MockHandler<?> handler) {
+        if (jfrEvents) {
+            MockHandler<?> recording = MockEvents.recording(handler);
+            return MockEvents.recordCreation(settings, () -> doCreateMock(settings, recording));
+        }
+        return doCreateMock(settings, handler);
+    }
+
+    private <T> T doCreateMock(MockCreationSettings<T> settings, MockHandler<?> handler) {
+        if (proxyInterfaces && ProxyMocks.supports(settings)) {
+            return ProxyMocks.create(settings, handler);
+        }
+        if (!supports(settings)) {
+            return Defaults.MOCK_MAKER.createMock(settings, handler);
+        }
+        MockClassKey key = MockClassKey.of(settings);
+        Class<?> mockClass = factory.mockClass(key);
+        if (prewarmer != null) {
+            prewarmer.used(key);
+        }
+        Object mock = newInstance(mockClass, settings);
+        ((HandlerAccess) mock).setMockHandler(handler);
+        return settings.getTypeToMock().cast(mock);
+    }
+
+    private static Object newInstance(Class<?> mockClass, MockCreationSettings<?> settings) {
+        if (settings.isUsingConstructor()) {
+            // ConstructorInstantiator 不缓存类
+            Instantiator instantiator = Defaults.INSTANTIATOR_PROVIDER.getInstantiator(settings);
+            return instantiator.newInstance(mockClass);
+        }
+        return INSTANTIATORS.get(mockClass).newInstance();
+    }
+
+    @Override
+    public MockHandler<?> getHandler(Object mock) {
+        if (mock instanceof HandlerAccess) {
+            return ((HandlerAccess) mock).getMockHandler();
+        }
+        ProxyMocks.Dispatcher dispatcher = ProxyMocks.dispatcherOf(mock);
+        if (dispatcher != null) {
+            return dispatcher.getHandler();
+        }
+        return Defaults.MOCK_MAKER.getHandler(mock);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void resetMock(Object mock, MockHandler newHandler, MockCreationSettings settings) {
+        MockHandler<?> handler = newHandler;
+        RecordingInvocationContainer.install(handler);
+        if (phaseTiming) {
+            handler = PhaseTimingHandler.wrap(handler);
+        }
+        if (jfrEvents) {
+            handler = MockEvents.recording(handler);
+        }
+        ProxyMocks.Dispatcher dispatcher = ProxyMocks.dispatcherOf(mock);
+        if (mock instanceof HandlerAccess) {
+            ((HandlerAccess) mock).setMockHandler(handler);
+        } else if (dispatcher != null) {
+            dispatcher.setHandler(handler);
+        } else {
+            Defaults.MOCK_MAKER.resetMock(mock, handler, settings);
+        }
+    }
+
+    @Override
+    public TypeMockability isTypeMockable(Class<?> type) {
+        return Defaults.MOCK_MAKER.isTypeMockable(type);
+    }
+
+    private boolean supports(MockCreationSettings<?> settings) {
+        if (factory == null || settings.getSerializableMode() != SerializableMode.NONE) {
+            return false;
+        }
+        if (!MockClassFactory.canGenerate(settings.getTypeToMock())) {
+            return false;
+        }
+        for (Class<?> extraInterface : settings.getExtraInterfaces()) {
+            if (!Modifier.isPublic(extraInterface.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ClassLoader contextClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader == null ? SogouMockMaker.class.getClassLoader() : loader;
+    }
+
+    /**
+     * Mockito 默认插件，第一次使用时才加载，避免在插件初始化过程中反过来访问插件注册表
+     */
+    static final class Defaults {
+
+        static final MockMaker MOCK_MAKER =
+                Mockito.framework().getPlugins().getDefaultPlugin(MockMaker.class);
+
+        static final InstantiatorProvider2 INSTANTIATOR_PROVIDER =
+                Mockito.framework().getPlugins().getDefaultPlugin(InstantiatorProvider2.class);
+
+        private Defaults() {
+        }
+    }
+}
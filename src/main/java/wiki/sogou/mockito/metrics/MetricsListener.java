@@ -0,0 +1,61 @@
+package wiki.sogou.mockito.metrics;
+
+import org.mockito.internal.util.concurrent.WeakConcurrentMap;
+import org.mockito.invocation.DescribedInvocation;
+import org.mockito.invocation.Invocation;
+import org.mockito.listeners.InvocationListener;
+import org.mockito.listeners.MethodInvocationReport;
+import org.mockito.listeners.StubbingLookupEvent;
+import org.mockito.listeners.StubbingLookupListener;
+import org.mockito.listeners.VerificationStartedEvent;
+import org.mockito.listeners.VerificationStartedListener;
+
+/**
+ * withMetrics() 放进 mock 设置里的监听器，把事件转给所属 mock 的 MockMetrics
+ * <p>
+ * 同一个 MockSettings 可以用来创建多个 mock，它们共用这一个监听器，所以 MockMetrics 按 mock 在第一次用到时创建。
+ * mock 按同一性弱引用，mock 被回收后它的计数也随之回收
+ */
+final class MetricsListener implements InvocationListener, StubbingLookupListener, VerificationStartedListener {
+
+    private final WeakConcurrentMap<Object, MockMetrics> metrics = new WeakConcurrentMap.WithInlinedExpunction<Object, MockMetrics>() {
+        @Override
+        protected MockMetrics defaultValue(Object mock) {
+            MockMetrics created = new MockMetrics(mock);
+            MockMetricsRegistry.INSTANCE.register(created);
+            return created;
+        }
+    };
+    /**
+     * 通常一个设置只创建一个 mock，先比较上一次的结果，不查表
+     */
+    private volatile MockMetrics last;
+
+    MockMetrics bind(Object mock) {
+        MockMetrics current = last;
+        if (current != null && current.mock() == mock) {
+            return current;
+        }
+        current = metrics.get(mock);
+        last = current;
+        return current;
+    }
+
+    @Override
+    public void reportInvocation(MethodInvocationReport methodInvocationReport) {
+        DescribedInvocation invocation = methodInvocationReport.getInvocation();
+        if (invocation instanceof Invocation) {
+            bind(((Invocation) invocation).getMock()).reportInvocation(methodInvocationReport);
+        }
+    }
+
+    @Override
+    public void onStubbingLookup(StubbingLookupEvent stubbingLookupEvent) {
+        bind(stubbingLookupEvent.getInvocation().getMock()).onStubbingLookup(stubbingLookupEvent);
+    }
+
+    @Override
+    public void onVerificationStarted(VerificationStartedEvent event) {
+        bind(event.getMock()).onVerificationStarted(event);
+    }
+}
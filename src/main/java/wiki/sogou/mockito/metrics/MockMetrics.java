@@ -0,0 +1,163 @@
+package wiki.sogou.mockito.metrics;
+
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+import org.mockito.exceptions.misusing.NotAMockException;
+import org.mockito.invocation.DescribedInvocation;
+import org.mockito.invocation.Invocation;
+import org.mockito.listeners.InvocationListener;
+import org.mockito.listeners.MethodInvocationReport;
+import org.mockito.listeners.StubbingLookupEvent;
+import org.mockito.listeners.StubbingLookupListener;
+import org.mockito.listeners.VerificationStartedEvent;
+import org.mockito.listeners.VerificationStartedListener;
+import org.mockito.mock.MockCreationSettings;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 单个 mock 的运行时计数：每个方法的调用次数和落到默认 Answer 的次数、命中打桩的次数、验证次数和耗时。
+ * 方法按签名区分，重载的方法分别计数
+ * <pre>
+ * List mock = mock(List.class, MockMetrics.withMetrics());
+ * mock.get(999);
+ * MockMetricsSnapshot snapshot = MockMetrics.of(mock).snapshot();
+ * </pre>
+ * 所有带计数的 mock 同时通过 JMX (wiki.sogou.mockito:type=MockMetrics) 暴露。
+ * 打桩时对 mock 的调用 (when(mock.get(0)) 里的 get) 也计为一次调用
+ */
+public final class MockMetrics implements InvocationListener, StubbingLookupListener, VerificationStartedListener {
+
+    /**
+     * 一次调用记录 (Invocation、位置、matcher) 的粗略大小，加上每个实参 16 字节
+     */
+    static final long INVOCATION_BYTES = 200;
+    static final long ARGUMENT_BYTES = 16;
+
+    private final Map<Method, MethodCounts> methods = new ConcurrentHashMap<>();
+    private final LongAdder stubHits = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+    private volatile long verificationStart;
+    private final WeakReference<Object> mock;
+
+    MockMetrics(Object mock) {
+        this.mock = new WeakReference<>(mock);
+    }
+
+    /**
+     * 带计数的 mock 设置，可以继续叠加其他设置。用同一个设置创建的每个 mock 分别计数
+     */
+    public static MockSettings withMetrics() {
+        MetricsListener listener = new MetricsListener();
+        return withSettings().invocationListeners(listener).stubbingLookupListeners(listener)
+                .verificationStartedListeners(listener);
+    }
+
+    public static MockMetrics of(Object mock) {
+        MockCreationSettings<?> settings = Mockito.mockingDetails(mock).getMockCreationSettings();
+        for (InvocationListener listener : settings.getInvocationListeners()) {
+            if (listener instanceof MetricsListener) {
+                return ((MetricsListener) listener).bind(mock);
+            }
+        }
+        throw new NotAMockException("Mock was not created with MockMetrics.withMetrics(): " + mock);
+    }
+
+    @Override
+    public void reportInvocation(MethodInvocationReport methodInvocationReport) {
+        DescribedInvocation invocation = methodInvocationReport.getInvocation();
+        long start = verificationStart;
+        if (start != 0) {
+            // verify(mock) 之后的这次调用是验证本身，不是被测代码的调用
+            verificationStart = 0;
+            verifications.increment();
+            verificationNanos.add(System.nanoTime() - start);
+            return;
+        }
+        if (invocation instanceof Invocation) {
+            countsOf(((Invocation) invocation).getMethod()).invocations.increment();
+        }
+    }
+
+    @Override
+    public void onStubbingLookup(StubbingLookupEvent stubbingLookupEvent) {
+        if (stubbingLookupEvent.getStubbingFound() != null) {
+            stubHits.increment();
+        } else {
+            countsOf(stubbingLookupEvent.getInvocation().getMethod()).defaultAnswers.increment();
+        }
+    }
+
+    private MethodCounts countsOf(Method method) {
+        MethodCounts counts = methods.get(method);
+        return counts != null ? counts : methods.computeIfAbsent(method, key -> new MethodCounts());
+    }
+
+    @Override
+    public void onVerificationStarted(VerificationStartedEvent event) {
+        verificationStart = System.nanoTime();
+    }
+
+    Object mock() {
+        return mock.get();
+    }
+
+    public MockMetricsSnapshot snapshot() {
+        Object mock = this.mock.get();
+        String name = "?";
+        long retained = 0;
+        long retainedBytes = 0;
+        if (mock != null) {
+            name = Mockito.mockingDetails(mock).getMockCreationSettings().getMockName().toString();
+            Collection<Invocation> recorded = Mockito.mockingDetails(mock).getInvocations();
+            retained = recorded.size();
+            for (Invocation invocation : recorded) {
+                retainedBytes += INVOCATION_BYTES + ARGUMENT_BYTES * invocation.getRawArguments().length;
+            }
+        }
+        Map<String, Long> invocations = new TreeMap<>();
+        Map<String, Long> defaultAnswers = new TreeMap<>();
+        for (Map.Entry<Method, MethodCounts> entry : methods.entrySet()) {
+            String signature = signature(entry.getKey());
+            long invoked = entry.getValue().invocations.sum();
+            long defaulted = entry.getValue().defaultAnswers.sum();
+            if (invoked > 0) {
+                invocations.put(signature, invoked);
+            }
+            if (defaulted > 0) {
+                defaultAnswers.put(signature, defaulted);
+            }
+        }
+        return new MockMetricsSnapshot(name, Collections.unmodifiableMap(invocations), stubHits.sum(),
+                Collections.unmodifiableMap(defaultAnswers), retained, retainedBytes, verifications.sum(),
+                verificationNanos.sum());
+    }
+
+    /**
+     * 方法名加参数类型，如 add(int,java.lang.Object)
+     */
+    static String signature(Method method) {
+        StringJoiner signature = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            signature.add(parameterType.getTypeName());
+        }
+        return signature.toString();
+    }
+
+    private static final class MethodCounts {
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder defaultAnswers = new LongAdder();
+    }
+}
@@ -0,0 +1,21 @@
+package wiki.sogou.mockito.metrics;
+
+import java.util.List;
+
+/**
+ * JMX 视图：所有还存活的带计数的 mock
+ */
+public interface MockMetricsMXBean {
+
+    int getMockCount();
+
+    long getTotalInvocations();
+
+    long getStubHits();
+
+    long getDefaultAnswers();
+
+    long getRetainedBytesEstimate();
+
+    List<MockMetricsSnapshot> getSnapshots();
+}
@@ -0,0 +1,126 @@
+package wiki.sogou.mockito.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 所有带计数的 mock 的登记表，第一次登记时注册到平台 MBeanServer
+ * <p>
+ * 计数对象随 mock 的设置一起被回收，这里只弱引用它们
+ */
+public final class MockMetricsRegistry implements MockMetricsMXBean {
+
+    public static final String OBJECT_NAME = "wiki.sogou.mockito:type=MockMetrics";
+
+    static final MockMetricsRegistry INSTANCE = new MockMetricsRegistry();
+
+    private final Set<MockMetrics> metrics = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private volatile boolean registered;
+    private volatile Exception registrationFailure;
+
+    private MockMetricsRegistry() {
+    }
+
+    public static MockMetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    void register(MockMetrics mockMetrics) {
+        metrics.add(mockMetrics);
+        if (!registered) {
+            registerMBean();
+        }
+    }
+
+    private synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // 没有 JMX 时仍然可以用 snapshots()
+            registrationFailure = e;
+        }
+    }
+
+    /**
+     * 注册 MBean 失败的原因，注册成功或者还没有注册时为 null
+     */
+    public Exception getRegistrationFailure() {
+        return registrationFailure;
+    }
+
+    /**
+     * 所有还存活的带计数的 mock 的快照
+     */
+    public List<MockMetricsSnapshot> snapshots() {
+        List<MockMetrics> live;
+        synchronized (metrics) {
+            live = new ArrayList<>(metrics);
+        }
+        List<MockMetricsSnapshot> snapshots = new ArrayList<>(live.size());
+        for (MockMetrics mockMetrics : live) {
+            snapshots.add(mockMetrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public int getMockCount() {
+        return metrics.size();
+    }
+
+    @Override
+    public long getTotalInvocations() {
+        long total = 0;
+        for (MockMetricsSnapshot snapshot : snapshots()) {
+            total += snapshot.getTotalInvocations();
+        }
+        return total;
+    }
+
+    @Override
+    public long getStubHits() {
+        long total = 0;
+        for (MockMetricsSnapshot snapshot : snapshots()) {
+            total += snapshot.getStubHits();
+        }
+        return total;
+    }
+
+    @Override
+    public long getDefaultAnswers() {
+        long total = 0;
+        for (MockMetricsSnapshot snapshot : snapshots()) {
+            total += snapshot.getDefaultAnswers();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRetainedBytesEstimate() {
+        long total = 0;
+        for (MockMetricsSnapshot snapshot : snapshots()) {
+            total += snapshot.getRetainedBytesEstimate();
+        }
+        return total;
+    }
+
+    @Override
+    public List<MockMetricsSnapshot> getSnapshots() {
+        return snapshots();
+    }
+}
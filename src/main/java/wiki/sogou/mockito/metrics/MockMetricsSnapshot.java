@@ -0,0 +1,97 @@
+package wiki.sogou.mockito.metrics;
+
+import java.util.Map;
+
+/**
+ * 某一时刻的 MockMetrics，getter 同时是 JMX 的 CompositeData 字段
+ */
+public class MockMetricsSnapshot {
+
+    private final String mockName;
+    private final Map<String, Long> invocations;
+    private final long stubHits;
+    private final Map<String, Long> defaultAnswers;
+    private final long retainedInvocations;
+    private final long retainedBytesEstimate;
+    private final long verifications;
+    private final long verificationNanos;
+
+    MockMetricsSnapshot(String mockName, Map<String, Long> invocations, long stubHits, Map<String, Long> defaultAnswers,
+                        long retainedInvocations, long retainedBytesEstimate, long verifications, long verificationNanos) {
+        this.mockName = mockName;
+        this.invocations = invocations;
+        this.stubHits = stubHits;
+        this.defaultAnswers = defaultAnswers;
+        this.retainedInvocations = retainedInvocations;
+        this.retainedBytesEstimate = retainedBytesEstimate;
+        this.verifications = verifications;
+        this.verificationNanos = verificationNanos;
+    }
+
+    public String getMockName() {
+        return mockName;
+    }
+
+    /**
+     * 方法签名 (如 get(int)) 到调用次数，不含 verify 时的调用
+     */
+    public Map<String, Long> getInvocations() {
+        return invocations;
+    }
+
+    public long getTotalInvocations() {
+        return sum(invocations);
+    }
+
+    public long getStubHits() {
+        return stubHits;
+    }
+
+    /**
+     * 没有命中打桩、落到默认 Answer 的调用次数
+     */
+    public long getDefaultAnswers() {
+        return sum(defaultAnswers);
+    }
+
+    /**
+     * 方法签名到落到默认 Answer 的次数
+     */
+    public Map<String, Long> getDefaultAnswersByMethod() {
+        return defaultAnswers;
+    }
+
+    /**
+     * mock 当前保存的调用记录数，stubOnly 的 mock 为 0
+     */
+    public long getRetainedInvocations() {
+        return retainedInvocations;
+    }
+
+    public long getRetainedBytesEstimate() {
+        return retainedBytesEstimate;
+    }
+
+    public long getVerifications() {
+        return verifications;
+    }
+
+    public long getVerificationNanos() {
+        return verificationNanos;
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return mockName + ": invocations=" + invocations + ", stubHits=" + stubHits + ", defaultAnswers=" + defaultAnswers
+                + ", retainedInvocations=" + retainedInvocations + ", retainedBytes~" + retainedBytesEstimate
+                + ", verifications=" + verifications + " (" + verificationNanos / 1000 + " us)";
+    }
+}
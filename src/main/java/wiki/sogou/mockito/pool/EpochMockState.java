@@ -0,0 +1,251 @@
+package wiki.sogou.mockito.pool;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.listeners.InvocationListener;
+import org.mockito.listeners.MethodInvocationReport;
+import org.mockito.stubbing.Answer;
+import wiki.sogou.mockito.counting.CountedInvocations;
+import wiki.sogou.mockito.util.ArgumentsKey;
+import wiki.sogou.mockito.util.Recorder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 池化 mock 的打桩和调用计数，每条记录带有写入时的 epoch
+ * <p>
+ * reset 只把 epoch 加一，是 O(1) 的；epoch 不同的记录在读取时立即视为不存在。旧 epoch 的记录延迟删除：
+ * 同一个 key 再次写入时被替换，读到的旧打桩直接删掉，其余的由之后每次调用顺带清理几条，
+ * 所以上一轮的参数和 Answer 在 mock 重新使用一段时间之后才会被释放。调用总数按 epoch 单独累计，total() 是 O(1) 的。
+ * 同时作为 mock 的默认 Answer 和 InvocationListener，可以直接用 CountingMocks.verifyCount 验证
+ */
+public class EpochMockState implements Answer<Object>, InvocationListener, CountedInvocations {
+
+    /**
+     * 每次调用顺带检查的旧记录数
+     */
+    private static final int SWEEP_PER_CALL = 2;
+
+    private final Map<ArgumentsKey, Stub> stubs = new ConcurrentHashMap<>();
+    private final Map<ArgumentsKey, Counter> counts = new ConcurrentHashMap<>();
+    private final Sweeper stubSweeper = new Sweeper(stubs);
+    private final Sweeper countSweeper = new Sweeper(counts);
+    private volatile Generation generation = new Generation(0);
+    private final AtomicBoolean idle = new AtomicBoolean();
+
+    @Override
+    public Object answer(InvocationOnMock invocation) throws Throwable {
+        ArgumentsKey key = new ArgumentsKey(invocation.getMethod(), invocation.getArguments());
+        Stub stub = stubs.get(key);
+        if (stub == null || stub.epoch != generation.epoch) {
+            if (stub != null) {
+                stubs.remove(key, stub);
+            }
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }
+        return stub.answer.answer(invocation);
+    }
+
+    @Override
+    public void reportInvocation(MethodInvocationReport methodInvocationReport) {
+        Object invocation = methodInvocationReport.getInvocation();
+        if (invocation instanceof InvocationOnMock) {
+            InvocationOnMock onMock = (InvocationOnMock) invocation;
+            Generation current = generation;
+            counts.compute(new ArgumentsKey(onMock.getMethod(), onMock.getArguments()),
+                    (key, counter) -> counter == null || counter.epoch != current.epoch ? new Counter(current.epoch) : counter)
+                    .count.increment();
+            current.total.increment();
+            stubSweeper.sweep(current.epoch);
+            countSweeper.sweep(current.epoch);
+        }
+    }
+
+    /**
+     * 清空打桩和调用记录：只切换 epoch，旧 epoch 的记录之后延迟删除
+     */
+    public synchronized void reset() {
+        generation = new Generation(generation.epoch + 1);
+    }
+
+    public int epoch() {
+        return generation.epoch;
+    }
+
+    /**
+     * 标记为池中空闲，已经空闲时返回 false
+     */
+    boolean markIdle() {
+        return idle.compareAndSet(false, true);
+    }
+
+    void markInUse() {
+        idle.set(false);
+    }
+
+    @Override
+    public long count(Method method, Object[] arguments) {
+        Counter counter = current(counts.get(new ArgumentsKey(method, arguments)));
+        return counter == null ? 0 : counter.count.sum();
+    }
+
+    @Override
+    public long verify(Method method, Object[] arguments) {
+        Counter counter = current(counts.get(new ArgumentsKey(method, arguments)));
+        if (counter == null) {
+            return 0;
+        }
+        long count = counter.count.sum();
+        counter.verified = count;
+        return count;
+    }
+
+    @Override
+    public List<String> unverified(int limit) {
+        List<String> unverified = new ArrayList<>();
+        for (Map.Entry<ArgumentsKey, Counter> entry : counts.entrySet()) {
+            Counter counter = current(entry.getValue());
+            long pending = counter == null ? 0 : counter.count.sum() - counter.verified;
+            if (pending > 0) {
+                if (unverified.size() == limit) {
+                    break;
+                }
+                unverified.add(entry.getKey() + " x " + pending);
+            }
+        }
+        return unverified;
+    }
+
+    @Override
+    public long total() {
+        return generation.total.sum();
+    }
+
+    private Counter current(Counter counter) {
+        return counter != null && counter.epoch == generation.epoch ? counter : null;
+    }
+
+    public Stubber doReturn(Object value) {
+        return doAnswer(invocation -> value);
+    }
+
+    public Stubber doThrow(Throwable throwable) {
+        return doAnswer(invocation -> {
+            throw throwable;
+        });
+    }
+
+    public Stubber doAnswer(Answer<?> answer) {
+        return new Stubber(answer);
+    }
+
+    public class Stubber {
+
+        private final Answer<?> answer;
+
+        Stubber(Answer<?> answer) {
+            this.answer = answer;
+        }
+
+        public <T> T when(T mock) {
+            return Recorder.record(mock, invocation ->
+                    stubs.put(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()), new Stub(answer, generation.epoch)));
+        }
+    }
+
+    /**
+     * 在一个集合上逐步删除旧 epoch 记录的游标。一遍扫完之后直到 epoch 再变化之前，sweep 只读一个 volatile 字段；
+     * 同时只有一个线程推进游标，其他线程直接跳过
+     */
+    private static final class Sweeper {
+
+        private final Map<ArgumentsKey, ? extends Stamped> records;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private Iterator<? extends Stamped> cursor = Collections.emptyIterator();
+        private int cursorEpoch;
+        private volatile int sweptEpoch;
+
+        Sweeper(Map<ArgumentsKey, ? extends Stamped> records) {
+            this.records = records;
+        }
+
+        void sweep(int epoch) {
+            if (sweptEpoch == epoch || !busy.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                for (int i = 0; i < SWEEP_PER_CALL; i++) {
+                    if (!cursor.hasNext()) {
+                        if (cursorEpoch == epoch) {
+                            sweptEpoch = epoch;
+                            return;
+                        }
+                        cursor = records.values().iterator();
+                        cursorEpoch = epoch;
+                        continue;
+                    }
+                    if (cursor.next().epoch() != epoch) {
+                        cursor.remove();
+                    }
+                }
+            } finally {
+                busy.set(false);
+            }
+        }
+    }
+
+    private interface Stamped {
+
+        int epoch();
+    }
+
+    private static final class Stub implements Stamped {
+
+        private final Answer<?> answer;
+        private final int epoch;
+
+        Stub(Answer<?> answer, int epoch) {
+            this.answer = answer;
+            this.epoch = epoch;
+        }
+
+        @Override
+        public int epoch() {
+            return epoch;
+        }
+    }
+
+    private static final class Generation {
+
+        private final int epoch;
+        private final LongAdder total = new LongAdder();
+
+        Generation(int epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class Counter implements Stamped {
+
+        private final int epoch;
+        private final LongAdder count = new LongAdder();
+        private volatile long verified;
+
+        Counter(int epoch) {
+            this.epoch = epoch;
+        }
+
+        @Override
+        public int epoch() {
+            return epoch;
+        }
+    }
+}
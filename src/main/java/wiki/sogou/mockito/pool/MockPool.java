@@ -0,0 +1,83 @@
+package wiki.sogou.mockito.pool;
+
+import org.mockito.Mockito;
+import org.mockito.exceptions.misusing.NotAMockException;
+import org.mockito.stubbing.Answer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 预先创建好的同类型 mock 池，用完归还时按 epoch 重置，省去每个测试创建 mock 的开销
+ * <pre>
+ * MockPool&lt;List&gt; pool = new MockPool&lt;&gt;(List.class, 16);
+ * List mock = pool.acquire();
+ * MockPool.stateOf(mock).doReturn(10).when(mock).size();
+ * mock.add(1);
+ * verifyCount(mock).add(1);
+ * pool.release(mock);
+ * </pre>
+ * 池里的 mock 是 stubOnly 的，打桩用 {@link EpochMockState} 的 doReturn/doThrow/doAnswer，
+ * 验证用 CountingMocks.verifyCount。归还时如果 mock 上还有 Mockito when() 的打桩，退回到 Mockito.reset。
+ * 同一个 mock 归还两次会抛出 IllegalStateException，否则它会被两个使用者同时取走
+ */
+public class MockPool<T> {
+
+    private final Class<T> type;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+
+    public MockPool(Class<T> type, int initialSize) {
+        this.type = type;
+        for (int i = 0; i < initialSize; i++) {
+            T mock = create();
+            stateOf(mock).markIdle();
+            idle.add(mock);
+        }
+    }
+
+    /**
+     * 池为空时创建新的 mock，归还后同样进入池中
+     */
+    public T acquire() {
+        T mock = idle.poll();
+        if (mock == null) {
+            return create();
+        }
+        stateOf(mock).markInUse();
+        return mock;
+    }
+
+    public void release(T mock) {
+        EpochMockState state = stateOf(mock);
+        if (!state.markIdle()) {
+            throw new IllegalStateException("Mock of " + type.getName() + " was already released to the pool");
+        }
+        state.reset();
+        if (!Mockito.mockingDetails(mock).getStubbings().isEmpty()) {
+            Mockito.reset((Object) mock);
+        }
+        idle.add(mock);
+    }
+
+    /**
+     * 池中空闲的 mock 数
+     */
+    public int idle() {
+        return idle.size();
+    }
+
+    private T create() {
+        EpochMockState state = new EpochMockState();
+        return Mockito.mock(type, withSettings().stubOnly().defaultAnswer(state).invocationListeners(state));
+    }
+
+    public static EpochMockState stateOf(Object mock) {
+        Answer<?> answer = Mockito.mockingDetails(mock).getMockCreationSettings().getDefaultAnswer();
+        if (answer instanceof EpochMockState) {
+            return (EpochMockState) answer;
+        }
+        throw new NotAMockException("Mock was not created by MockPool: " + mock);
+    }
+}
@@ -0,0 +1,50 @@
+package wiki.sogou.mockito.spy;
+
+import org.mockito.AdditionalAnswers;
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 转发式的 spy：mock 实例不复制真实对象的字段，未打桩的调用直接转发给原对象
+ * <pre>
+ * List&lt;String&gt; spy = delegatingSpy(List.class, new LinkedList&lt;&gt;());
+ * when(spy.size()).thenReturn(100);
+ * spy.add("one");
+ * verify(spy).add("one");
+ * </pre>
+ * 与 spy() 的区别：
+ * <ul>
+ * <li>原对象内部的 this 调用不会经过 mock，所以不能拦截真实方法之间的相互调用</li>
+ * <li>状态只在原对象上，对 spy 的修改会反映到原对象，反之亦然</li>
+ * <li>final 方法和直接的字段访问不会转发</li>
+ * </ul>
+ */
+public final class DelegatingSpies {
+
+    private DelegatingSpies() {
+    }
+
+    /**
+     * 按原对象的实际类型创建
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T delegatingSpy(T instance) {
+        return delegatingSpy((Class<T>) instance.getClass(), instance);
+    }
+
+    /**
+     * 按给定的类型创建，type 为接口时生成的 mock 类更小，也不受原对象 final 类的限制
+     */
+    public static <T> T delegatingSpy(Class<T> type, T instance) {
+        return Mockito.mock(type, withDelegation(instance));
+    }
+
+    /**
+     * 转发模式的 mock 设置，可以继续叠加 name、extraInterfaces、invocationListeners 等
+     */
+    public static MockSettings withDelegation(Object instance) {
+        return withSettings().defaultAnswer(AdditionalAnswers.delegatesTo(instance));
+    }
+}
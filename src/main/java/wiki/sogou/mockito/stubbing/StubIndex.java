@@ -0,0 +1,89 @@
+package wiki.sogou.mockito.stubbing;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import wiki.sogou.mockito.util.ArgumentsKey;
+import wiki.sogou.mockito.util.Recorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按方法和实参哈希索引的打桩表，作为 mock 的默认 Answer 使用
+ * <p>
+ * Mockito 每次调用都会从新到旧线性扫描所有打桩，打桩数量上千时查找成本随之增长。
+ * 精确实参的打桩放进这里之后查找是一次哈希查找；用 argument matcher 的打桩仍然用 Mockito 的 when()，
+ * Mockito 只需扫描这些少量的 matcher 打桩，未命中时才落到这个索引
+ * <pre>
+ * StubIndex stubs = new StubIndex();
+ * Map&lt;String, String&gt; mock = mock(Map.class, stubs);
+ * stubs.doReturn("foo").when(mock).get("some arg");
+ * </pre>
+ * 同一个方法和实参重复打桩时后一次覆盖前一次，stubs.doReturn(..).when(mock) 之后用 matcher 会抛出 InvalidUseOfMatchersException。
+ * 注意 Mockito 自己的打桩总是优先于这里的打桩
+ */
+public class StubIndex implements Answer<Object> {
+
+    private final Map<ArgumentsKey, Answer<?>> stubs = new ConcurrentHashMap<>();
+    private final Answer<?> fallback;
+
+    public StubIndex() {
+        this(Mockito.RETURNS_DEFAULTS);
+    }
+
+    /**
+     * @param fallback 索引中没有对应打桩时使用的 Answer
+     */
+    public StubIndex(Answer<?> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Object answer(InvocationOnMock invocation) throws Throwable {
+        Answer<?> answer = stubs.get(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()));
+        return (answer == null ? fallback : answer).answer(invocation);
+    }
+
+    public Stubber doReturn(Object value) {
+        return doAnswer(invocation -> value);
+    }
+
+    public Stubber doThrow(Throwable throwable) {
+        return doAnswer(invocation -> {
+            throw throwable;
+        });
+    }
+
+    public Stubber doAnswer(Answer<?> answer) {
+        return new Stubber(answer);
+    }
+
+    /**
+     * 当前索引中的打桩数量
+     */
+    public int size() {
+        return stubs.size();
+    }
+
+    public void clear() {
+        stubs.clear();
+    }
+
+    public class Stubber {
+
+        private final Answer<?> answer;
+
+        Stubber(Answer<?> answer) {
+            this.answer = answer;
+        }
+
+        /**
+         * 返回一个与 mock 同类型的记录器，在记录器上调用的方法和实参即是打桩的 key
+         */
+        public <T> T when(T mock) {
+            return Recorder.record(mock, invocation ->
+                    stubs.put(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()), answer));
+        }
+    }
+}
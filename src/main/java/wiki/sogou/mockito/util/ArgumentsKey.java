@@ -0,0 +1,57 @@
+package wiki.sogou.mockito.util;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 方法加实参组成的 key，实参按 equals/hashCode 比较，数组按内容比较，与 Mockito 的 eq() 一致
+ */
+public final class ArgumentsKey {
+
+    private final Method method;
+    private final Object[] arguments;
+    private final int hash;
+
+    public ArgumentsKey(Method method, Object[] arguments) {
+        this.method = method;
+        this.arguments = arguments;
+        this.hash = 31 * method.hashCode() + Arrays.deepHashCode(arguments);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * 与另一次调用的方法和实参是否相同，不需要为另一次调用创建 key
+     */
+    public boolean matches(Method otherMethod, Object[] otherArguments) {
+        return method.equals(otherMethod) && Arrays.deepEquals(arguments, otherArguments);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ArgumentsKey)) {
+            return false;
+        }
+        ArgumentsKey that = (ArgumentsKey) o;
+        return hash == that.hash && method.equals(that.method) && Arrays.deepEquals(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return method.getName() + Arrays.deepToString(arguments);
+    }
+}
@@ -0,0 +1,131 @@
+package wiki.sogou.mockito.util;
+
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+import org.mockito.exceptions.misusing.InvalidUseOfMatchersException;
+import org.mockito.internal.configuration.plugins.Plugins;
+import org.mockito.internal.matchers.LocalizedMatcher;
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationContainer;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Mockito.withSettings;
+import static org.mockito.internal.progress.ThreadSafeMockingProgress.mockingProgress;
+
+/**
+ * 与某个 mock 同类型的记录器，用来以 Mockito 风格 (xxx(mock).method(args)) 捕获一次方法调用
+ * <p>
+ * 每种类型只创建一个记录器，调用 {@link #record} 之后在记录器上的下一次调用交给给定的回调处理。
+ * 记录器挂在被 mock 的类型上 (ClassValue)，不会让测试结束后的类和类加载器无法卸载；
+ * 回调只对 record 返回的那个记录器有效，记录器没有被调用时 (例如计算实参时抛出异常) 由下一次 record 替换，不会被别的记录器调用。
+ * 记录器直接由 MockMaker 创建、用自己的 MockHandler 处理调用，不经过 Mockito 的 handler，
+ * 所以调用时 argument matcher 还留在 Mockito 的 matcher 栈上：记录的只能是精确实参，用了 matcher 时抛出
+ * InvalidUseOfMatchersException，而不是把 matcher 的返回值 (""、0、null) 当成实参
+ */
+public final class Recorder {
+
+    /**
+     * 被 mock 的类型 -> (类型加额外接口 -> 记录器)
+     */
+    private static final ClassValue<Map<List<Class<?>>, Object>> RECORDERS = new ClassValue<Map<List<Class<?>>, Object>>() {
+        @Override
+        protected Map<List<Class<?>>, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final ThreadLocal<Pending> PENDING = new ThreadLocal<>();
+
+    private Recorder() {
+    }
+
+    /**
+     * 在记录器上被调用的方法和实参
+     */
+    public interface Callback {
+
+        void recorded(InvocationOnMock invocation) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T record(T mock, Callback callback) {
+        MockCreationSettings<?> settings = Mockito.mockingDetails(mock).getMockCreationSettings();
+        List<Class<?>> types = new ArrayList<>();
+        types.add(settings.getTypeToMock());
+        types.addAll(settings.getExtraInterfaces());
+        T recorder = (T) RECORDERS.get(settings.getTypeToMock()).computeIfAbsent(types, Recorder::create);
+        PENDING.set(new Pending(recorder, callback));
+        return recorder;
+    }
+
+    private static Object create(List<Class<?>> types) {
+        MockSettings settings = withSettings().stubOnly();
+        if (types.size() > 1) {
+            settings.extraInterfaces(types.subList(1, types.size()).toArray(new Class<?>[0]));
+        }
+        MockCreationSettings<Object> creationSettings = buildSettings(settings, types.get(0));
+        return Plugins.getMockMaker().createMock(creationSettings, new RecordingHandler(creationSettings));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MockCreationSettings<Object> buildSettings(MockSettings settings, Class<?> type) {
+        return (MockCreationSettings<Object>) settings.build(type);
+    }
+
+    private static final class RecordingHandler implements MockHandler<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MockCreationSettings<Object> settings;
+        private final InvocationContainer container;
+
+        RecordingHandler(MockCreationSettings<Object> settings) {
+            this.settings = settings;
+            this.container = new InvocationContainerImpl(settings);
+        }
+
+        @Override
+        public Object handle(Invocation invocation) throws Throwable {
+            Pending pending = PENDING.get();
+            PENDING.remove();
+            List<LocalizedMatcher> matchers = mockingProgress().getArgumentMatcherStorage().pullLocalizedMatchers();
+            if (!matchers.isEmpty()) {
+                throw new InvalidUseOfMatchersException("\nArgument matchers are not supported here, use exact arguments:\n"
+                        + invocation.getLocation() + "\n" + matchers.size() + " matcher(s) used, e.g. "
+                        + matchers.get(0).getMatcher());
+            }
+            if (pending != null && pending.recorder == invocation.getMock()) {
+                pending.callback.recorded(invocation);
+            }
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }
+
+        @Override
+        public MockCreationSettings<Object> getMockSettings() {
+            return settings;
+        }
+
+        @Override
+        public InvocationContainer getInvocationContainer() {
+            return container;
+        }
+    }
+
+    private static final class Pending {
+
+        private final Object recorder;
+        private final Callback callback;
+
+        Pending(Object recorder, Callback callback) {
+            this.recorder = recorder;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package wiki.sogou.mockito.util;
+
+import org.mockito.Mockito;
+import org.mockito.listeners.VerificationListener;
+import org.mockito.verification.VerificationEvent;
+
+/**
+ * 标记当前线程的 mock 调用是不是 verify() 的调用，每个线程注册一个 VerificationListener
+ * <p>
+ * Mockito 的监听器按线程注册，verify() 在调用 mock 之前就复制了监听器列表，
+ * 所以必须在 verify() 之前 (创建 mock 或测试开始时) 调用 {@link #listen()}，不能等到第一次 handle。
+ * 同一个线程上同一个类的监听器 Mockito 只允许注册一个，所以各个 handler 共用这一个
+ */
+public final class VerificationFlag implements VerificationListener {
+
+    private static final ThreadLocal<VerificationFlag> CURRENT = ThreadLocal.withInitial(() -> {
+        VerificationFlag flag = new VerificationFlag();
+        Mockito.framework().addListener(flag);
+        return flag;
+    });
+
+    private boolean verified;
+
+    private VerificationFlag() {
+    }
+
+    /**
+     * 当前线程的标记，第一次调用时注册监听器
+     */
+    public static VerificationFlag listen() {
+        return CURRENT.get();
+    }
+
+    public void clear() {
+        verified = false;
+    }
+
+    /**
+     * 上一次 clear() 之后当前线程是否完成过一次验证
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    @Override
+    public void onVerification(VerificationEvent verificationEvent) {
+        verified = true;
+    }
+}
@@ -0,0 +1,249 @@
+package wiki.sogou.mockito.verification;
+
+import org.mockito.Mockito;
+import org.mockito.exceptions.misusing.NotAMockException;
+import org.mockito.exceptions.verification.VerificationInOrderFailure;
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.internal.verification.DefaultRegisteredInvocations;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationContainer;
+import wiki.sogou.mockito.util.ArgumentsKey;
+import wiki.sogou.mockito.util.Recorder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于调用序号的 InOrder 验证
+ * <p>
+ * Mockito 的 InOrder 每一步验证都要把所有 mock 的调用合并排序，再在合并后的历史中重新查找。
+ * 这里为每个 mock 保存按序号排好的调用记录，并记下每个调用在合并历史中的名次；第一次验证某个 mock 时
+ * 按方法和实参给它的调用建索引。验证时维护一个全局的序号游标，每一步在索引里二分查找游标之后的相同调用。
+ * 调用记录在每一步验证时读取，of() 之后才发生的调用也会被验证：每一步先看各个 mock 的调用数有没有变化
+ * (Mockito 默认的容器直接读它内部列表的长度，不复制列表)，只有新增的调用才排序、计算名次，并让对应 mock 的索引重建
+ * <pre>
+ * SequencedInOrder inOrder = SequencedInOrder.of(firstMock, secondMock);
+ * inOrder.verify(firstMock).add("was called first");
+ * inOrder.verify(secondMock).add("was called second");
+ * </pre>
+ * 只支持精确实参。次数的判定与 Mockito 的 inOrder.verify(mock, times(n)) 相同：游标之后紧挨着的一段相同调用正好 n 次，
+ * 或者游标之后所有相同调用正好 n 次 (中间可以穿插其他调用)，都不是时验证失败，多了也算失败
+ */
+public class SequencedInOrder {
+
+    private final Map<Object, Log> logs = new IdentityHashMap<>();
+    private long cursor = -1;
+    /**
+     * 已经计算过名次的调用总数
+     */
+    private int ranked;
+
+    private SequencedInOrder(Object... mocks) {
+        for (Object mock : mocks) {
+            if (!Mockito.mockingDetails(mock).isMock()) {
+                throw new NotAMockException("Argument passed to SequencedInOrder.of() is not a mock: " + mock);
+            }
+            logs.put(mock, new Log(mock));
+        }
+    }
+
+    public static SequencedInOrder of(Object... mocks) {
+        return new SequencedInOrder(mocks);
+    }
+
+    public <T> T verify(T mock) {
+        return verify(mock, 1);
+    }
+
+    public <T> T verify(T mock, int wantedCount) {
+        Log log = logs.get(mock);
+        if (log == null) {
+            throw new VerificationInOrderFailure("\nMock was not passed to SequencedInOrder.of(): " + mock);
+        }
+        refresh();
+        return Recorder.record(mock, invocation -> {
+            int[] matches = log.matches(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()));
+            int first = log.firstMatchAfter(matches, cursor);
+            int available = matches.length - first;
+            int chunk = log.chunk(matches, first);
+            int verified = chunk == wantedCount ? chunk : available;
+            if (verified != wantedCount) {
+                throw new VerificationInOrderFailure("\nWanted " + wantedCount + " time(s) in order but was " + available
+                        + ":\n" + invocation.getMethod().getName() + Arrays.toString(invocation.getArguments()));
+            }
+            for (int i = first; i < first + verified; i++) {
+                Invocation found = log.invocations.get(matches[i]);
+                found.markVerified();
+                cursor = found.getSequenceNumber();
+            }
+        });
+    }
+
+    /**
+     * 读取各个 mock 在上次读取之后的新调用，按序号接在合并历史的后面
+     */
+    private void refresh() {
+        List<Invocation> added = new ArrayList<>();
+        for (Log log : logs.values()) {
+            log.collectNew(added);
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        added.sort(BY_SEQUENCE);
+        Map<Invocation, Integer> ranks = new IdentityHashMap<>();
+        for (Invocation invocation : added) {
+            ranks.put(invocation, ranked++);
+        }
+        for (Log log : logs.values()) {
+            log.rank(ranks);
+        }
+    }
+
+    private static final Field REGISTERED_INVOCATIONS = field(InvocationContainerImpl.class, "registeredInvocations");
+    private static final Field INVOCATION_LIST = field(DefaultRegisteredInvocations.class, "invocations");
+
+    private static Field field(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mockito 默认容器里登记的调用数 (包括 getInvocations 过滤掉的 toString)，其他容器返回 -1
+     */
+    private static int registeredCount(Object mock) {
+        InvocationContainer container = Mockito.mockingDetails(mock).getMockHandler().getInvocationContainer();
+        if (REGISTERED_INVOCATIONS == null || INVOCATION_LIST == null || container.getClass() != InvocationContainerImpl.class) {
+            return -1;
+        }
+        try {
+            Object registered = REGISTERED_INVOCATIONS.get(container);
+            if (!(registered instanceof DefaultRegisteredInvocations)) {
+                return -1;
+            }
+            List<?> list = (List<?>) INVOCATION_LIST.get(registered);
+            synchronized (list) {
+                return list.size();
+            }
+        } catch (IllegalAccessException e) {
+            return -1;
+        }
+    }
+
+    private static final Comparator<Invocation> BY_SEQUENCE =
+            (a, b) -> Integer.compare(a.getSequenceNumber(), b.getSequenceNumber());
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    /**
+     * 一个 mock 按序号排序的调用，以及每个调用在所有 mock 合并历史中的名次
+     */
+    private static final class Log {
+
+        private final Object mock;
+        private final List<Invocation> invocations = new ArrayList<>();
+        private int[] ranks = new int[0];
+        private Map<ArgumentsKey, int[]> index;
+        private int registered = -1;
+
+        Log(Object mock) {
+            this.mock = mock;
+        }
+
+        /**
+         * 序号大于已有调用的新调用接到 invocations 后面，同时放进 added
+         */
+        void collectNew(List<Invocation> added) {
+            int count = registeredCount(mock);
+            if (count >= 0 && count == registered) {
+                return;
+            }
+            registered = count;
+            Collection<Invocation> current = Mockito.mockingDetails(mock).getInvocations();
+            if (current.size() == invocations.size()) {
+                return;
+            }
+            int last = invocations.isEmpty() ? Integer.MIN_VALUE : invocations.get(invocations.size() - 1).getSequenceNumber();
+            List<Invocation> fresh = new ArrayList<>();
+            for (Invocation invocation : current) {
+                if (invocation.getSequenceNumber() > last) {
+                    fresh.add(invocation);
+                }
+            }
+            fresh.sort(BY_SEQUENCE);
+            invocations.addAll(fresh);
+            added.addAll(fresh);
+            index = null;
+        }
+
+        void rank(Map<Invocation, Integer> merged) {
+            int from = ranks.length;
+            ranks = Arrays.copyOf(ranks, invocations.size());
+            for (int i = from; i < ranks.length; i++) {
+                ranks[i] = merged.get(invocations.get(i));
+            }
+        }
+
+        /**
+         * 方法和实参相同的调用在 invocations 中的下标，升序
+         */
+        int[] matches(ArgumentsKey wanted) {
+            if (index == null) {
+                Map<ArgumentsKey, List<Integer>> positions = new HashMap<>();
+                for (int i = 0; i < invocations.size(); i++) {
+                    Invocation invocation = invocations.get(i);
+                    positions.computeIfAbsent(new ArgumentsKey(invocation.getMethod(), invocation.getArguments()),
+                            key -> new ArrayList<>()).add(i);
+                }
+                index = new HashMap<>();
+                for (Map.Entry<ArgumentsKey, List<Integer>> entry : positions.entrySet()) {
+                    index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+            return index.getOrDefault(wanted, NO_MATCHES);
+        }
+
+        /**
+         * matches 中第一个序号大于 after 的位置
+         */
+        int firstMatchAfter(int[] matches, long after) {
+            int low = 0;
+            int high = matches.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (invocations.get(matches[mid]).getSequenceNumber() <= after) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 从 matches[first] 开始、在合并历史中紧挨着的相同调用的个数
+         */
+        int chunk(int[] matches, int first) {
+            if (first == matches.length) {
+                return 0;
+            }
+            int end = first + 1;
+            while (end < matches.length && ranks[matches[end]] == ranks[matches[end - 1]] + 1) {
+                end++;
+            }
+            return end - first;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package wiki.sogou.mockito.annotations;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 不论是否用 -Pmock-initializers 编译，字段都应该被初始化：生成了初始化器时直接赋值，否则退回 openMocks
+ */
+class FastMocksTest {
+
+    @Mock
+    private List mockList;
+
+    @Mock(name = "named", stubOnly = true)
+    List<String> namedList;
+
+    @Mock(name = "\"quoted\\name\"")
+    List<String> quotedList;
+
+    @Spy
+    private LinkedList<String> spiedList = new LinkedList<>();
+
+    @Captor
+    ArgumentCaptor<String> captor;
+
+    @Spy
+    private Inner inner;
+
+    @BeforeEach
+    void init() {
+        FastMocks.openMocks(this);
+    }
+
+    /**
+     * 与 MockTest.test 相同
+     */
+    @Test
+    void testMockField() {
+        mockList.add("test");
+        verify(mockList).add("test");
+    }
+
+    @Test
+    void testSettingsFromAnnotation() {
+        assertEquals("named", mockingDetails(namedList).getMockCreationSettings().getMockName().toString());
+        assertTrue(mockingDetails(namedList).getMockCreationSettings().isStubOnly());
+    }
+
+    @Test
+    void testSpyAndCaptorFields() {
+        spiedList.add("one");
+        assertEquals(1, spiedList.size());
+
+        verify(spiedList).add(captor.capture());
+        assertEquals("one", captor.getValue());
+    }
+
+    /**
+     * 名字原样作为 mock 的名字，生成的代码里要转义
+     */
+    @Test
+    void testNameWithQuotes() {
+        assertEquals("\"quoted\\name\"", mockingDetails(quotedList).getMockCreationSettings().getMockName().toString());
+    }
+
+    /**
+     * 非静态内部类的 spy 以测试实例作为外部实例创建
+     */
+    @Test
+    void testInnerClassSpy() {
+        assertEquals("inner of " + getClass().getSimpleName(), inner.describe());
+        verify(inner).describe();
+    }
+
+    /**
+     * 三层继承，中间一层没有注解字段也就没有生成的初始化器，祖父类的字段同样要被初始化
+     */
+    @Test
+    void testInheritedFieldsThroughClassWithoutAnnotations() {
+        Child child = new Child();
+        FastMocks.openMocks(child);
+
+        assertTrue(mockingDetails(child.grandparentMock).isMock());
+        assertTrue(mockingDetails(child.childMock).isMock());
+        assertNull(child.middleList);
+    }
+
+    class Inner {
+
+        String describe() {
+            return "inner of " + FastMocksTest.this.getClass().getSimpleName();
+        }
+    }
+
+    static class Grandparent {
+
+        @Mock
+        List<String> grandparentMock;
+    }
+
+    static class Middle extends Grandparent {
+
+        List<String> middleList;
+    }
+
+    static class Child extends Middle {
+
+        @Mock
+        List<String> childMock;
+    }
+}
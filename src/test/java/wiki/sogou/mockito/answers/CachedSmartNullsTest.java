@@ -0,0 +1,77 @@
+package wiki.sogou.mockito.answers;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.exceptions.verification.SmartNullPointerException;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static wiki.sogou.mockito.answers.CachedSmartNulls.cachedSmartNulls;
+
+
+class CachedSmartNullsTest {
+
+    /**
+     * 与 MockitoTest.testWithLegacySystems 相同的用法，重复的未打桩调用返回同一个 smart null
+     */
+    @Test
+    void testSmartNullIsCached() {
+        List mock = mock(List.class, cachedSmartNulls());
+
+        Object first = mock.listIterator();
+        Object second = mock.listIterator();
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertThrows(SmartNullPointerException.class, () -> mock.listIterator().hasNext());
+    }
+
+    @Test
+    void testDefaultsArePreserved() {
+        List mock = mock(List.class, cachedSmartNulls());
+
+        assertEquals(0, mock.size());
+        assertTrue(mock.subList(0, 1).isEmpty());
+    }
+
+    @Test
+    void testSmartNullsAreNotSharedBetweenMocks() {
+        List first = mock(List.class, cachedSmartNulls());
+        List second = mock(List.class, cachedSmartNulls());
+
+        assertNotSame(first.listIterator(), second.listIterator());
+    }
+
+    /**
+     * 同一个 Answer 用在另一个 mock 上时不返回第一个 mock 的 smart null
+     */
+    @Test
+    void testSharedAnswerCachesOnlyForFirstMock() {
+        CachedSmartNulls answer = (CachedSmartNulls) cachedSmartNulls();
+        List first = mock(List.class, answer);
+        List second = mock(List.class, answer);
+
+        Object cached = first.listIterator();
+        assertSame(cached, first.listIterator());
+        assertNotSame(cached, second.listIterator());
+    }
+
+    /**
+     * 返回类型由参数决定的泛型方法不按方法缓存
+     */
+    @Test
+    void testGenericReturnTypeFollowsArguments() {
+        Converter mock = mock(Converter.class, cachedSmartNulls());
+
+        assertInstanceOf(ArrayList.class, mock.convert(new ArrayList<>()));
+        assertInstanceOf(LinkedList.class, mock.convert(new LinkedList<>()));
+    }
+
+    public interface Converter {
+
+        <T> T convert(T value);
+    }
+}
@@ -0,0 +1,56 @@
+package wiki.sogou.mockito.answers;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.exceptions.base.MockitoException;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static wiki.sogou.mockito.answers.StacklessAnswers.throwsStackless;
+
+
+class StacklessAnswersTest {
+
+    /**
+     * 与 MockitoTest.testStubbingWithExceptions 相同的场景，每次抛出的都是同一个没有栈的实例
+     */
+    @Test
+    void testReusedStacklessException() {
+        LinkedList<String> mockList = mock(LinkedList.class);
+        RuntimeException exception = new RuntimeException();
+        doAnswer(throwsStackless(exception)).when(mockList).clear();
+
+        RuntimeException first = assertThrows(RuntimeException.class, mockList::clear);
+        RuntimeException second = assertThrows(RuntimeException.class, mockList::clear);
+
+        assertSame(exception, first);
+        assertSame(first, second);
+        assertEquals(0, first.getStackTrace().length);
+    }
+
+    @Test
+    void testStubbingByExceptionClass() {
+        List<String> mockedList = mock(List.class);
+        when(mockedList.get(1)).thenAnswer(throwsStackless(IllegalStateException.class));
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> mockedList.get(1));
+        assertEquals(0, thrown.getStackTrace().length);
+    }
+
+    /**
+     * 与 thenThrow 一样在打桩时校验受检异常
+     */
+    @Test
+    void testCheckedExceptionMustBeDeclared() throws Exception {
+        List<String> mockedList = mock(List.class);
+        Callable<String> callable = mock(Callable.class);
+
+        assertThrows(MockitoException.class, () -> when(mockedList.get(1)).thenAnswer(throwsStackless(new IOException())));
+        when(callable.call()).thenAnswer(throwsStackless(new IOException()));
+        assertThrows(IOException.class, callable::call);
+    }
+}
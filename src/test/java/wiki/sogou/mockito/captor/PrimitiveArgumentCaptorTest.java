@@ -0,0 +1,54 @@
+package wiki.sogou.mockito.captor;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.exceptions.base.MockitoException;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+
+class PrimitiveArgumentCaptorTest {
+
+    /**
+     * 捕获 MockitoTest.testStubbing 中 LinkedList.get(int) 的下标
+     */
+    @Test
+    void testIntCaptor() {
+        LinkedList mockedList = mock(LinkedList.class);
+        for (int i = 0; i < 100; i++) {
+            mockedList.get(i);
+        }
+
+        IntArgumentCaptor captor = new IntArgumentCaptor();
+        verify(mockedList, times(100)).get(captor.capture());
+
+        assertEquals(100, captor.size());
+        assertEquals(99, captor.getValue());
+        assertEquals(4950, captor.stream().sum());
+    }
+
+    @Test
+    void testLongAndDoubleCaptor() {
+        List<Object> mock = mock(List.class);
+        mock.add(1L);
+        mock.add(2.5D);
+
+        LongArgumentCaptor longs = new LongArgumentCaptor();
+        verify(mock).add(longs.capture());
+        assertArrayEquals(new long[]{1L}, longs.getAllValues());
+
+        DoubleArgumentCaptor doubles = new DoubleArgumentCaptor();
+        verify(mock).add(doubles.capture());
+        assertEquals(2.5D, doubles.getValue());
+    }
+
+    @Test
+    void testNothingCaptured() {
+        assertThrows(MockitoException.class, () -> new IntArgumentCaptor().getValue());
+    }
+}
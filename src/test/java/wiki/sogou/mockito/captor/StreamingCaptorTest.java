@@ -0,0 +1,49 @@
+package wiki.sogou.mockito.captor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+
+class StreamingCaptorTest {
+
+    @Test
+    void testStreaming() {
+        List<String> mock = mock(List.class);
+        mock.add("one");
+        mock.add("two");
+
+        List<String> seen = new ArrayList<>();
+        StreamingCaptor<String> captor = StreamingCaptor.streaming(seen::add);
+        verify(mock, times(2)).add(captor.capture());
+
+        assertEquals(Arrays.asList("one", "two"), seen);
+    }
+
+    /**
+     * 大量调用时只保留聚合结果
+     */
+    @Test
+    void testAggregating() {
+        List<Integer> mock = mock(List.class);
+        for (int i = 0; i < 10_000; i++) {
+            mock.add(i % 1000);
+        }
+
+        StreamingCaptor<Integer> captor = StreamingCaptor.aggregating(3);
+        verify(mock, atLeastOnce()).add(captor.capture());
+
+        Aggregates<Integer> aggregates = captor.getAggregates();
+        assertEquals(10_000, aggregates.getCount());
+        assertEquals(0, (int) aggregates.getMin());
+        assertEquals(999, (int) aggregates.getMax());
+        assertEquals(Arrays.asList(997, 998, 999), aggregates.getLast());
+        assertTrue(Math.abs(aggregates.getDistinctEstimate() - 1000) < 50);
+    }
+}
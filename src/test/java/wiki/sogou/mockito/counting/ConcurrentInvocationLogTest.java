@@ -0,0 +1,69 @@
+package wiki.sogou.mockito.counting;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.internal.util.MockUtil;
+import org.mockito.invocation.Invocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static wiki.sogou.mockito.counting.CountingMocks.withConcurrentLog;
+
+
+class ConcurrentInvocationLogTest {
+
+    /**
+     * 多个线程同时调用同一个 mock，所有调用都被记录，合并后仍按调用顺序排列
+     */
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        List<String> mockedList = mock(List.class, withConcurrentLog());
+        when(mockedList.get(0)).thenReturn("first");
+        int threads = 8;
+        int calls = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < calls; i++) {
+                    mockedList.add("one");
+                    mockedList.get(0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        verify(mockedList, times(threads * calls)).add("one");
+        verify(mockedList, times(threads * calls)).get(0);
+
+        mockedList.clear();
+        List<Invocation> invocations = new ArrayList<>(mockingDetails(mockedList).getInvocations());
+        assertEquals(2 * threads * calls + 1, invocations.size());
+        assertEquals("clear", invocations.get(2 * threads * calls).getMethod().getName());
+        for (int i = 1; i < invocations.size(); i++) {
+            assertTrue(invocations.get(i - 1).getSequenceNumber() < invocations.get(i).getSequenceNumber());
+        }
+    }
+
+    /**
+     * 并发记录的 mock 不经过 Mockito 加锁的调用列表和打桩查找
+     */
+    @Test
+    void testRecordingContainerInstalled() {
+        List<String> mockedList = mock(List.class, withConcurrentLog());
+
+        assertInstanceOf(RecordingInvocationContainer.class, MockUtil.getInvocationContainer(mockedList));
+    }
+}
@@ -0,0 +1,178 @@
+package wiki.sogou.mockito.counting;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.exceptions.verification.NeverWantedButInvoked;
+import org.mockito.exceptions.verification.NoInteractionsWanted;
+import org.mockito.exceptions.verification.TooFewActualInvocations;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.atMostOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static wiki.sogou.mockito.counting.CountingMocks.withConcurrentLog;
+import static wiki.sogou.mockito.counting.CountingMocks.withCounting;
+
+
+class CountingMocksTest {
+
+    /**
+     * 与 MockitoTest.testVerifyNumber 完全相同的验证，只换了 mock 的设置
+     */
+    @Test
+    void testVerifyNumber() {
+        LinkedList<String> mockedList = mock(LinkedList.class, withCounting());
+        mockedList.add("once");
+
+        mockedList.add("twice");
+        mockedList.add("twice");
+
+        mockedList.add("three times");
+        mockedList.add("three times");
+        mockedList.add("three times");
+
+        verify(mockedList).add("once");
+        verify(mockedList, times(1)).add("once");
+        verify(mockedList, times(2)).add("twice");
+        verify(mockedList, times(3)).add("three times");
+        verify(mockedList, never()).add("never happened");
+        verify(mockedList, atMostOnce()).add("once");
+        verify(mockedList, atLeastOnce()).add("three times");
+        verify(mockedList, atLeast(2)).add("three times");
+        verify(mockedList, atMost(5)).add("three times");
+
+        assertEquals(6, mockingDetails(mockedList).getInvocations().size());
+    }
+
+    @Test
+    void testVerifyFailure() {
+        LinkedList<String> mockedList = mock(LinkedList.class, withCounting());
+        mockedList.add("once");
+
+        assertThrows(TooFewActualInvocations.class, () -> verify(mockedList, times(2)).add("once"));
+        assertThrows(NeverWantedButInvoked.class, () -> verify(mockedList, never()).add("once"));
+    }
+
+    /**
+     * 与 MockitoTest.testVerifyNoMoreInteractions 相同的场景，两种记录模式都支持
+     */
+    @Test
+    void testVerifyNoMoreInteractions() {
+        for (List<String> mockedList : new List[]{mock(List.class, withCounting()), mock(List.class, withConcurrentLog())}) {
+            mockedList.add("one");
+            mockedList.add("two");
+
+            verify(mockedList).add("one");
+            assertThrows(NoInteractionsWanted.class, () -> verifyNoMoreInteractions(mockedList));
+
+            verify(mockedList).add("two");
+            verifyNoMoreInteractions(mockedList);
+
+            mockedList.add("one");
+            assertThrows(NoInteractionsWanted.class, () -> verifyNoMoreInteractions(mockedList));
+            verify(mockedList, times(2)).add("one");
+            verifyNoMoreInteractions(mockedList);
+        }
+    }
+
+    @Test
+    void testVerifyNoInteractions() {
+        for (List<String> unused : new List[]{mock(List.class, withCounting()), mock(List.class, withConcurrentLog())}) {
+            verifyNoInteractions(unused);
+
+            unused.clear();
+            assertThrows(NoInteractionsWanted.class, () -> verifyNoInteractions(unused));
+        }
+    }
+
+    /**
+     * 与 MockitoTest.testStubbing 相同的打桩，when() 和 doReturn() 里的调用在记录时就被丢弃
+     */
+    @Test
+    void testStubbingCallsAreNotRecorded() {
+        for (LinkedList<String> mockedList : new LinkedList[]{mock(LinkedList.class, withCounting()),
+                mock(LinkedList.class, withConcurrentLog())}) {
+            when(mockedList.get(0)).thenReturn("first");
+            doReturn("second").when(mockedList).get(1);
+            when(mockedList.get(2)).thenReturn("third").thenReturn("again");
+
+            assertEquals("first", mockedList.get(0));
+            assertEquals("third", mockedList.get(2));
+            assertEquals("again", mockedList.get(2));
+
+            verify(mockedList).get(0);
+            verify(mockedList, never()).get(1);
+            verify(mockedList, times(2)).get(2);
+            verifyNoMoreInteractions(mockedList);
+            assertEquals(3, mockingDetails(mockedList).getInvocations().size());
+        }
+    }
+
+    /**
+     * 验证失败的调用仍然未验证，verifyNoMoreInteractions 会报告它，两种记录模式都一样
+     */
+    @Test
+    void testFailedVerificationDoesNotMarkVerified() {
+        for (List<String> mockedList : new List[]{mock(List.class, withCounting()), mock(List.class, withConcurrentLog())}) {
+            mockedList.add("once");
+
+            assertThrows(TooFewActualInvocations.class, () -> verify(mockedList, times(2)).add("once"));
+            assertThrows(NoInteractionsWanted.class, () -> verifyNoMoreInteractions(mockedList));
+        }
+    }
+
+    /**
+     * Mockito.reset 换上新的调用记录，clearInvocations 清空调用记录但保留打桩
+     */
+    @Test
+    void testResetAndClearInvocations() {
+        for (List<String> mockedList : new List[]{mock(List.class, withCounting()), mock(List.class, withConcurrentLog())}) {
+            when(mockedList.size()).thenReturn(10);
+            mockedList.add("one");
+
+            clearInvocations(mockedList);
+            verifyNoInteractions(mockedList);
+            assertEquals(10, mockedList.size());
+
+            Mockito.reset(mockedList);
+            verifyNoInteractions(mockedList);
+            assertEquals(0, mockedList.size());
+            mockedList.add("two");
+            verify(mockedList).size();
+            verify(mockedList).add("two");
+            verifyNoMoreInteractions(mockedList);
+        }
+    }
+
+    /**
+     * 只计数时实参相等的调用共用一个 Invocation，captor 仍然按调用次数拿到实参
+     */
+    @Test
+    void testArgumentCaptor() {
+        List<String> mockedList = mock(List.class, withCounting());
+        mockedList.add("one");
+        mockedList.add("one");
+        mockedList.add("two");
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(mockedList, times(3)).add(captor.capture());
+        assertEquals(3, captor.getAllValues().size());
+        assertEquals(2, captor.getAllValues().stream().filter("one"::equals).count());
+    }
+}
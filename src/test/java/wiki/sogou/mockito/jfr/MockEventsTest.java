@@ -0,0 +1,101 @@
+package wiki.sogou.mockito.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.MockHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+
+class MockEventsTest {
+
+    @Test
+    void testCreationEvent() throws Throwable {
+        List<RecordedEvent> events = record(MockEvents.CREATION, () -> MockEvents.recordCreation(
+                Mockito.mockingDetails(mock(List.class)).getMockCreationSettings(), () -> "mock"));
+
+        assertEquals(1, events.size());
+        assertEquals(List.class.getName(), events.get(0).getClass("mockedType").getName());
+    }
+
+    /**
+     * 包装后的 handler 对每次调用提交事件，记录方法名和是否命中打桩
+     */
+    @Test
+    void testInvocationEvent() throws Throwable {
+        List<String> mockedList = mock(List.class);
+        Mockito.when(mockedList.get(0)).thenReturn("first");
+        MockHandler<?> handler = MockEvents.recording(Mockito.mockingDetails(mockedList).getMockHandler());
+
+        List<RecordedEvent> events = record(MockEvents.INVOCATION, () -> {
+            handler.handle(invocation(mockedList, 0));
+            handler.handle(invocation(mockedList, 999));
+            MockEvents.flush();
+        });
+
+        assertEquals(2, events.size());
+        assertEquals("get", events.get(0).getString("method"));
+        assertEquals("INVOKE", events.get(0).getString("phase"));
+        assertTrue(events.get(0).getBoolean("stubbed"));
+        assertFalse(events.get(1).getBoolean("stubbed"));
+    }
+
+    /**
+     * when(...) 里的调用在打桩之后改记为 STUB，verify() 的调用记为 VERIFY
+     */
+    @Test
+    void testStubAndVerifyPhases() throws Throwable {
+        List<String> mockedList = mock(List.class);
+        MockHandler<?> handler = MockEvents.recording(Mockito.mockingDetails(mockedList).getMockHandler());
+
+        List<RecordedEvent> events = record(MockEvents.INVOCATION, () -> {
+            Mockito.when(handler.handle(invocation(mockedList, 0))).thenReturn("first");
+            handler.handle(invocation(mockedList, 0));
+            Mockito.verify(mockedList);
+            handler.handle(invocation(mockedList, 0));
+            MockEvents.flush();
+        });
+
+        assertEquals(Arrays.asList("STUB", "INVOKE", "VERIFY"),
+                events.stream().map(event -> event.getString("phase")).collect(Collectors.toList()));
+        assertTrue(events.get(1).getBoolean("stubbed"));
+    }
+
+    private static Invocation invocation(List<String> mock, int index) throws NoSuchMethodException {
+        return Mockito.framework().getInvocationFactory().createInvocation(mock,
+                Mockito.mockingDetails(mock).getMockCreationSettings(), List.class.getMethod("get", int.class),
+                () -> null, index);
+    }
+
+    private static List<RecordedEvent> record(String eventName, ThrowingRunnable action) throws Throwable {
+        Path file = Files.createTempFile("mock-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private interface ThrowingRunnable {
+
+        void run() throws Throwable;
+    }
+}
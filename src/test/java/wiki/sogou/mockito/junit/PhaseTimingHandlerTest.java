@@ -0,0 +1,65 @@
+package wiki.sogou.mockito.junit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.MockHandler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+class PhaseTimingHandlerTest {
+
+    @AfterEach
+    void stopClock() {
+        PhaseClock.stop();
+    }
+
+    @Test
+    void testVerificationIsTimedAsVerify() throws Throwable {
+        List<String> mockedList = mock(List.class);
+        mockedList.add("one");
+        MockHandler<?> handler = PhaseTimingHandler.wrap(mockingDetails(mockedList).getMockHandler());
+        PhaseClock clock = PhaseClock.start();
+
+        verify(mockedList);
+        handler.handle(invocation(mockedList, "one"));
+
+        assertTrue(clock.verifyNanos > 0);
+        assertEquals(0, clock.setupNanos);
+    }
+
+    /**
+     * when(mock.add(..)) 里的调用在之后多出打桩时才计入 setup，普通调用不计入
+     */
+    @Test
+    void testStubbingCallIsTimedAsSetup() throws Throwable {
+        List<String> mockedList = mock(List.class);
+        MockHandler<?> handler = PhaseTimingHandler.wrap(mockingDetails(mockedList).getMockHandler());
+        PhaseClock clock = PhaseClock.start();
+
+        handler.handle(invocation(mockedList, "one"));
+        clock.settle();
+        assertEquals(0, clock.setupNanos);
+
+        Mockito.when(handler.handle(invocation(mockedList, "two"))).thenReturn(true);
+        clock.settle();
+        assertTrue(clock.setupNanos > 0);
+        assertEquals(0, clock.verifyNanos);
+    }
+
+    @Test
+    void testEscape() {
+        assertEquals("a\\\"b\\\\c\\u000a", PhaseTimingExtension.escape("a\"b\\c\n"));
+    }
+
+    private static Invocation invocation(List<String> mock, String argument) throws NoSuchMethodException {
+        return Mockito.framework().getInvocationFactory().createInvocation(mock,
+                mockingDetails(mock).getMockCreationSettings(), List.class.getMethod("add", Object.class),
+                () -> null, argument);
+    }
+}
@@ -0,0 +1,46 @@
+package wiki.sogou.mockito.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class LatencyHistogramTest {
+
+    /**
+     * 分位数的相对误差不超过一个子桶的宽度
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertWithin(50_000_000, histogram.percentile(50));
+        assertWithin(99_000_000, histogram.percentile(99));
+        assertWithin(99_900_000, histogram.percentile(99.9));
+    }
+
+    @Test
+    void testMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20);
+        second.record(30);
+
+        first.merge(second);
+
+        assertEquals(3, first.getTotalCount());
+        assertEquals(30, first.getMax());
+        assertEquals(20, first.percentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 16, "expected ~" + expected + " but was " + actual);
+    }
+}
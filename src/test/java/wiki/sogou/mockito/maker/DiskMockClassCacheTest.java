@@ -0,0 +1,61 @@
+package wiki.sogou.mockito.maker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class DiskMockClassCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    /**
+     * 写入磁盘的字节码可以被另一个缓存实例读出并重新定义成 mock 类
+     */
+    @Test
+    void testStoreAndLoad() {
+        MockClassKey key = MockClassKey.of(List.class, Collections.emptyList());
+        MockClassBytes generated = new MockClassGenerator().generate(key);
+
+        new DiskMockClassCache(cacheDir).store(key, generated);
+        MockClassBytes loaded = new DiskMockClassCache(cacheDir).load(key);
+
+        assertNotNull(loaded);
+        assertEquals(generated.getName(), loaded.getName());
+        for (Map.Entry<String, byte[]> entry : generated.getTypes().entrySet()) {
+            assertArrayEquals(entry.getValue(), loaded.getTypes().get(entry.getKey()));
+        }
+
+        Class<?> mockClass = loaded.define(key);
+        assertTrue(List.class.isAssignableFrom(mockClass));
+        assertTrue(HandlerAccess.class.isAssignableFrom(mockClass));
+    }
+
+    @Test
+    void testMiss() {
+        MockClassKey key = MockClassKey.of(LinkedList.class, Collections.emptyList());
+        assertNull(new DiskMockClassCache(cacheDir).load(key));
+    }
+
+    /**
+     * 同样的类型和设置得到同样的类名，不同的类型得到不同的类名
+     */
+    @Test
+    void testKeyIsStable() {
+        MockClassKey first = MockClassKey.of(Map.class, Collections.emptyList());
+        MockClassKey second = MockClassKey.of(Map.class, Collections.emptyList());
+        MockClassKey other = MockClassKey.of(List.class, Collections.emptyList());
+
+        assertEquals(first, second);
+        assertEquals(first.getDigest(), second.getDigest());
+        assertNotEquals(first.getDigest(), other.getDigest());
+    }
+}
@@ -0,0 +1,77 @@
+package wiki.sogou.mockito.maker;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Location;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class InvocationLocationsTest {
+
+    /**
+     * 位置在打印时才从栈中取出，指向调用方而不是 Mockito 或 MockDispatcher
+     */
+    @Test
+    void testLazyLocationPointsToCaller() {
+        Location location = InvocationLocations.lazy();
+
+        assertTrue(location.toString().startsWith("-> at " + InvocationLocationsTest.class.getName()
+                + ".testLazyLocationPointsToCaller"), location.toString());
+        assertEquals("InvocationLocationsTest.java", location.getSourceFile());
+    }
+
+    /**
+     * 测试运行在 Java 9 以上，StackWalker 只保存一个栈帧；Throwable 用于栈浅的线程和 Java 8
+     */
+    @Test
+    void testStackWalkerCapture() {
+        assertTrue(InvocationLocations.StackFrames.AVAILABLE);
+        assertFalse(InvocationLocations.StackFrames.callerFrame() instanceof Throwable);
+
+        Location fallback = new InvocationLocations.LazyLocation(new Throwable());
+        assertTrue(fallback.toString().startsWith("-> at " + InvocationLocationsTest.class.getName()
+                + ".testStackWalkerCapture"), fallback.toString());
+    }
+
+    @Test
+    void testInternalFrames() {
+        assertTrue(InvocationLocations.isInternal("org.mockito.internal.handler.MockHandlerImpl"));
+        assertTrue(InvocationLocations.isInternal(MockDispatcher.ForAbstract.class.getName()));
+        assertTrue(InvocationLocations.isInternal("wiki.sogou.mockito.codegen.java.util.List$SogouMock$abc"));
+        assertTrue(InvocationLocations.isInternal(InvocationLocations.class.getName()));
+        assertTrue(InvocationLocations.isInternal(InvocationLocations.LazyLocation.class.getName()));
+        assertTrue(InvocationLocations.isInternal(ProxyMocks.Dispatcher.class.getName()));
+        assertTrue(InvocationLocations.isInternal("jdk.proxy2.$Proxy12"));
+        assertTrue(InvocationLocations.isInternal("com.sun.proxy.$Proxy12"));
+        assertFalse(InvocationLocations.isInternal(InvocationLocationsTest.class.getName()));
+        assertFalse(InvocationLocations.isInternal(ProxyMocksTest.class.getName()));
+    }
+
+    @Test
+    void testSampling() {
+        assertNotSame(InvocationLocations.NOT_SAMPLED, InvocationLocations.sampled(1));
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (InvocationLocations.sampled(1000000) != InvocationLocations.NOT_SAMPLED) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled < 10);
+    }
+
+    /**
+     * 打印没有采样的位置 (验证失败报告调用列表) 之后，之后的调用都记录位置
+     */
+    @Test
+    void testMissedLocationEnablesCapture() {
+        try {
+            assertTrue(InvocationLocations.NOT_SAMPLED.toString().contains("calls from now on record their location"));
+            for (int i = 0; i < 100; i++) {
+                assertTrue(InvocationLocations.sampled(1000000).toString().startsWith("-> at "
+                        + InvocationLocationsTest.class.getName() + ".testMissedLocationEnablesCapture"));
+            }
+        } finally {
+            InvocationLocations.missedLocation = false;
+        }
+    }
+}
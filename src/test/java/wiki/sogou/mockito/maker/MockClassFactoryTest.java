@@ -0,0 +1,165 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.junit.jupiter.api.Test;
+import org.mockito.internal.handler.MockHandlerFactory;
+import org.mockito.mock.MockCreationSettings;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.internal.progress.ThreadSafeMockingProgress.mockingProgress;
+
+
+class MockClassFactoryTest {
+
+    @Test
+    void testStrongCacheReusesClass() {
+        MockClassFactory factory = new MockClassFactory(null, null);
+        MockClassKey key = MockClassKey.of(List.class, Collections.emptyList());
+
+        assertSame(factory.mockClass(key), factory.mockClass(key));
+        assertEquals(1, factory.size());
+    }
+
+    @Test
+    void testWeakCacheReusesLiveClass() {
+        MockClassFactory factory = new MockClassFactory(null, null, true);
+        MockClassKey key = MockClassKey.of(List.class, Collections.emptyList());
+
+        Class<?> mockClass = factory.mockClass(key);
+        assertSame(mockClass, factory.mockClass(key));
+    }
+
+    /**
+     * 没有 mock 类的强引用之后，mock 类和被 mock 的接口所在的类加载器都可以被回收
+     */
+    @Test
+    void testUnloadable() throws InterruptedException {
+        MockClassFactory factory = new MockClassFactory(null, null, true);
+        WeakReference<ClassLoader> typeLoader = defineMockClass(factory);
+
+        awaitCollected(typeLoader, factory);
+        assertNull(typeLoader.get());
+        assertEquals(0, factory.size());
+    }
+
+    /**
+     * 通过 SogouMockMaker 创建、调用并丢弃真正的 mock 实例之后，mock 类同样可以被卸载，
+     * 再次 mock 同名的类型时重新定义的类可以正常实例化
+     */
+    @Test
+    void testUnloadableMocks() throws Exception {
+        SogouMockMaker maker = unloadableMaker();
+        WeakReference<ClassLoader> first = createAndDropMock(maker);
+        awaitCollected(first, null);
+        assertNull(first.get());
+
+        WeakReference<ClassLoader> second = createAndDropMock(maker);
+        awaitCollected(second, null);
+        assertNull(second.get());
+    }
+
+    /**
+     * 生成的 mock 类覆盖不了包私有方法，这样的类型交给 Mockito 默认的 MockMaker
+     */
+    @Test
+    void testPackagePrivateMethodsFallBack() {
+        assertFalse(MockClassFactory.canGenerate(PackagePrivateService.class));
+        assertFalse(MockClassFactory.canGenerate(PackagePrivateSubService.class));
+        assertTrue(MockClassFactory.canGenerate(ProtectedService.class));
+
+        SogouMockMaker maker = unloadableMaker();
+        MockCreationSettings<PackagePrivateService> settings = withSettings().build(PackagePrivateService.class);
+        PackagePrivateService service = maker.createMock(settings, MockHandlerFactory.createMockHandler(settings));
+        assertFalse(service instanceof HandlerAccess);
+
+        assertNull(service.pkgPrivate());
+        service.prot();
+        when(service.pkgPrivate()).thenReturn("stub");
+        assertEquals("stub", service.pkgPrivate());
+        assertNull(service.prot());
+    }
+
+    private static WeakReference<ClassLoader> defineMockClass(MockClassFactory factory) {
+        Class<?> type = generateInterface();
+        Class<?> mockClass = factory.mockClass(MockClassKey.of(type, Collections.emptyList()));
+        assertTrue(type.isAssignableFrom(mockClass));
+        assertEquals(1, factory.size());
+        return new WeakReference<>(type.getClassLoader());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<ClassLoader> createAndDropMock(SogouMockMaker maker) throws Exception {
+        Class<Callable<Object>> type = (Class<Callable<Object>>) generateInterface();
+        MockCreationSettings<Callable<Object>> settings = withSettings().build(type);
+        Callable<Object> mock = maker.createMock(settings, MockHandlerFactory.createMockHandler(settings));
+        assertInstanceOf(HandlerAccess.class, mock);
+
+        when(mock.call()).thenReturn("called");
+        assertEquals("called", mock.call());
+        verify(mock).call();
+        // Mockito 在线程上记住最后一次调用的 mock
+        mockingProgress().resetOngoingStubbing();
+        return new WeakReference<>(type.getClassLoader());
+    }
+
+    /**
+     * 每次都在新的类加载器里定义同名的接口
+     */
+    private static Class<?> generateInterface() {
+        return new ByteBuddy()
+                .makeInterface(Callable.class)
+                .name("wiki.sogou.mockito.generated.UnloadableApi")
+                .make()
+                .load(MockClassFactoryTest.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+    }
+
+    private static SogouMockMaker unloadableMaker() {
+        String previous = System.getProperty(MakerSettings.UNLOADABLE_CLASSES);
+        System.setProperty(MakerSettings.UNLOADABLE_CLASSES, "true");
+        try {
+            return new SogouMockMaker();
+        } finally {
+            if (previous == null) {
+                System.clearProperty(MakerSettings.UNLOADABLE_CLASSES);
+            } else {
+                System.setProperty(MakerSettings.UNLOADABLE_CLASSES, previous);
+            }
+        }
+    }
+
+    private static void awaitCollected(WeakReference<?> reference, MockClassFactory factory) throws InterruptedException {
+        for (int i = 0; i < 50 && (reference.get() != null || factory != null && factory.size() > 0); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+    }
+
+    public static class PackagePrivateService {
+
+        String pkgPrivate() {
+            return "real";
+        }
+
+        protected String prot() {
+            return "real";
+        }
+    }
+
+    public static class PackagePrivateSubService extends PackagePrivateService {
+    }
+
+    public static class ProtectedService {
+
+        protected String prot() {
+            return "real";
+        }
+    }
+}
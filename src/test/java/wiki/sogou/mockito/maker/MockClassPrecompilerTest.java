@@ -0,0 +1,94 @@
+package wiki.sogou.mockito.maker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractQueue;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+class MockClassPrecompilerTest {
+
+    @TempDir
+    Path output;
+
+    /**
+     * MockTest 的 @Mock 字段和 MockitoTest 中 mock(X.class) 的类型都能被扫描到，并生成可以从 classpath 加载的 mock 类
+     */
+    @Test
+    void testScanAndGenerate() throws Exception {
+        Path testClasses = testClasses();
+        MockClassPrecompiler precompiler = new MockClassPrecompiler();
+        precompiler.scan(testClasses);
+
+        assertTrue(precompiler.getTypeNames().contains(List.class.getName()));
+        assertTrue(precompiler.getTypeNames().contains(LinkedList.class.getName()));
+        assertTrue(precompiler.getTypeNames().contains(Map.class.getName()));
+
+        precompiler.generate(testClasses, output);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, null)) {
+            PrecompiledMockClasses precompiled = new PrecompiledMockClasses(loader);
+            assertTrue(precompiled.isPresent());
+            assertNotNull(precompiled.load(MockClassKey.of(List.class, Collections.emptyList())));
+
+            // 有预生成的类时不再生成字节码
+            MockClassFactory factory = new MockClassFactory(precompiled, null, false, null, new MockClassGenerator() {
+                @Override
+                public MockClassBytes generate(MockClassKey key) {
+                    throw new AssertionError("Generated " + key);
+                }
+            });
+            Class<?> mockClass = factory.mockClass(MockClassKey.of(List.class, Collections.emptyList()));
+            assertTrue(List.class.isAssignableFrom(mockClass));
+            assertTrue(HandlerAccess.class.isAssignableFrom(mockClass));
+        }
+    }
+
+    /**
+     * 类常量一直保留到消费它的 mock/spy 调用，其他参数里的类常量和已经被别的调用用掉的类常量不算
+     */
+    @Test
+    void testCallSitesWithMoreArguments() throws Exception {
+        MockClassPrecompiler precompiler = new MockClassPrecompiler();
+        precompiler.scan(testClasses());
+
+        assertTrue(precompiler.getTypeNames().contains(AbstractMap.class.getName()));
+        assertTrue(precompiler.getTypeNames().contains(AbstractSet.class.getName()));
+        assertTrue(precompiler.getTypeNames().contains(AbstractList.class.getName()));
+        assertFalse(precompiler.getTypeNames().contains(Serializable.class.getName()));
+        assertFalse(precompiler.getTypeNames().contains(AbstractQueue.class.getName()));
+    }
+
+    /**
+     * 只被扫描，不会执行
+     */
+    @SuppressWarnings("unused")
+    private static void callSites(Class<?> type) {
+        mock(AbstractMap.class, withSettings().extraInterfaces(Serializable.class));
+        mock(AbstractSet.class, "named");
+        spy(AbstractList.class);
+        Objects.requireNonNull(AbstractQueue.class);
+        mock(type);
+    }
+
+    private static Path testClasses() throws URISyntaxException {
+        return Paths.get(MockClassPrecompilerTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
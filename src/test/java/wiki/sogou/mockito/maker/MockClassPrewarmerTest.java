@@ -0,0 +1,112 @@
+package wiki.sogou.mockito.maker;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class MockClassPrewarmerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLineRoundTrip() {
+        MockClassKey key = MockClassKey.of(AbstractList.class, Arrays.asList(RandomAccess.class, Closeable.class));
+        String line = MockClassPrewarmer.line(key);
+
+        assertEquals("java.util.AbstractList java.io.Closeable java.util.RandomAccess", line);
+        assertEquals(key, MockClassPrewarmer.parse(line, getClass().getClassLoader()));
+    }
+
+    /**
+     * 找不到、不能生成的类型和不是接口的额外类型都被跳过
+     */
+    @Test
+    void testSkipInvalidLines() {
+        ClassLoader loader = getClass().getClassLoader();
+        assertNull(MockClassPrewarmer.parse("com.example.Missing", loader));
+        assertNull(MockClassPrewarmer.parse("java.lang.String", loader));
+        assertNull(MockClassPrewarmer.parse("java.util.AbstractList java.util.ArrayList", loader));
+    }
+
+    @Test
+    void testPrewarm() throws Exception {
+        Path list = dir.resolve("prewarm.txt");
+        Files.write(list, Arrays.asList("# comment", "java.util.AbstractList", "java.util.List", "com.example.Missing"),
+                StandardCharsets.UTF_8);
+        MockClassFactory factory = new MockClassFactory(null, null);
+
+        assertEquals(2, new MockClassPrewarmer(list).start(factory, getClass().getClassLoader()));
+        for (int i = 0; i < 500 && factory.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, factory.size());
+    }
+
+    /**
+     * 本次运行定义过的 mock 类和原有清单合并写回，找不到的类型也保留
+     */
+    @Test
+    void testRecordAndWrite() throws Exception {
+        Path list = dir.resolve("prewarm.txt");
+        Files.write(list, Collections.singletonList("com.example.Missing"), StandardCharsets.UTF_8);
+        MockClassPrewarmer prewarmer = new MockClassPrewarmer(list);
+        MockClassFactory factory = new MockClassFactory(null, null, false, prewarmer::record);
+        prewarmer.start(factory, getClass().getClassLoader());
+
+        factory.mockClass(MockClassKey.of(List.class, Collections.emptyList()));
+        prewarmer.writeList();
+
+        assertEquals(Arrays.asList("com.example.Missing", "java.util.List"),
+                Files.readAllLines(list, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * unloadable 模式下准备好的类在第一次用到之前不会被回收，用到之后才可以卸载
+     */
+    @Test
+    void testPreparedClassIsHeldUntilUsed() throws Exception {
+        Class<?> type = new ByteBuddy()
+                .makeInterface(Callable.class)
+                .name("wiki.sogou.mockito.generated.PrewarmedApi")
+                .make()
+                .load(getClass().getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+        Path list = dir.resolve("prewarm.txt");
+        Files.write(list, Collections.singletonList(type.getName()), StandardCharsets.UTF_8);
+        MockClassFactory factory = new MockClassFactory(null, null, true);
+        MockClassPrewarmer prewarmer = new MockClassPrewarmer(list);
+
+        assertEquals(1, prewarmer.start(factory, type.getClassLoader()));
+        for (int i = 0; i < 500 && factory.size() < 1; i++) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(1, factory.size());
+
+        prewarmer.used(MockClassKey.of(type, Collections.emptyList()));
+        for (int i = 0; i < 50 && factory.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, factory.size());
+    }
+}
@@ -0,0 +1,90 @@
+package wiki.sogou.mockito.maker;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.internal.handler.MockHandlerFactory;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.MockHandler;
+import org.mockito.mock.MockCreationSettings;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+class ProxyMocksTest {
+
+    @Test
+    void testSupportsOnlyPlainInterfaceMocks() {
+        assertTrue(ProxyMocks.supports(settingsOf(mock(List.class))));
+        assertTrue(ProxyMocks.supports(settingsOf(mock(List.class, withSettings().extraInterfaces(RandomAccess.class)))));
+        assertFalse(ProxyMocks.supports(settingsOf(mock(LinkedList.class))));
+        assertFalse(ProxyMocks.supports(settingsOf(mock(List.class, CALLS_REAL_METHODS))));
+        assertFalse(ProxyMocks.supports(settingsOf(mock(List.class, withSettings().serializable()))));
+    }
+
+    /**
+     * -Dsogou.mockito.maker=proxy 时接口的 mock 是 JDK 动态代理，打桩和验证都作用在这个代理上
+     */
+    @Test
+    void testProxyMockStubbingAndVerification() {
+        SogouMockMaker maker = makerWith(MakerSettings.MAKER, "proxy");
+        List<String> proxy = createMock(maker, withSettings().extraInterfaces(RandomAccess.class).build(List.class));
+
+        assertTrue(Proxy.isProxyClass(proxy.getClass()));
+        assertTrue(proxy instanceof RandomAccess);
+        assertTrue(mockingDetails(proxy).isMock());
+
+        when(proxy.get(0)).thenReturn("first");
+        assertEquals("first", proxy.get(0));
+        assertNull(proxy.get(999));
+        assertEquals(0, proxy.size());
+        assertEquals(proxy, proxy);
+        verify(proxy).get(0);
+        verify(proxy).get(999);
+        verify(proxy, never()).clear();
+
+        reset(proxy);
+        assertNull(proxy.get(0));
+        assertSame(mockingDetails(proxy).getMockHandler(), ProxyMocks.dispatcherOf(proxy).getHandler());
+    }
+
+    /**
+     * 调用位置跳过代理类、ProxyMocks 和 MockDispatcher 的栈帧，指向测试方法
+     */
+    @Test
+    void testProxyMockLocationPointsToCaller() {
+        SogouMockMaker maker = makerWith(MakerSettings.MAKER, "proxy");
+        List<String> proxy = createMock(maker, withSettings().build(List.class));
+
+        proxy.get(1);
+
+        Invocation invocation = mockingDetails(proxy).getInvocations().iterator().next();
+        assertTrue(invocation.getLocation().toString().startsWith("-> at " + ProxyMocksTest.class.getName()
+                + ".testProxyMockLocationPointsToCaller"), invocation.getLocation().toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createMock(SogouMockMaker maker, MockCreationSettings<?> settings) {
+        MockCreationSettings<T> typed = (MockCreationSettings<T>) settings;
+        MockHandler<T> handler = MockHandlerFactory.createMockHandler(typed);
+        return maker.createMock(typed, handler);
+    }
+
+    private static SogouMockMaker makerWith(String property, String value) {
+        System.setProperty(property, value);
+        try {
+            return new SogouMockMaker();
+        } finally {
+            System.clearProperty(property);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> MockCreationSettings<T> settingsOf(T mock) {
+        return (MockCreationSettings<T>) mockingDetails(mock).getMockCreationSettings();
+    }
+}
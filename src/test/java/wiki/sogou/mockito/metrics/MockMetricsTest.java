@@ -0,0 +1,102 @@
+package wiki.sogou.mockito.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.MockSettings;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static wiki.sogou.mockito.metrics.MockMetrics.withMetrics;
+
+
+class MockMetricsTest {
+
+    /**
+     * 与 MockitoTest.testStubbing 相同的场景，get(999) 没有打桩，落到默认 Answer
+     */
+    @Test
+    void testStubHitsAndDefaultAnswers() {
+        LinkedList<String> mockedList = mock(LinkedList.class, withMetrics());
+        when(mockedList.get(0)).thenReturn("first");
+
+        mockedList.get(0);
+        mockedList.get(999);
+        verify(mockedList).get(0);
+
+        MockMetricsSnapshot snapshot = MockMetrics.of(mockedList).snapshot();
+        // when() 里的一次加上之后的两次，verify 时的调用不计入
+        assertEquals(3L, (long) snapshot.getInvocations().get("get(int)"));
+        assertEquals(1, snapshot.getStubHits());
+        assertEquals(2, snapshot.getDefaultAnswers());
+        assertEquals(2L, (long) snapshot.getDefaultAnswersByMethod().get("get(int)"));
+        assertEquals(1, snapshot.getVerifications());
+        assertEquals(2, snapshot.getRetainedInvocations());
+        assertTrue(snapshot.getRetainedBytesEstimate() > 0);
+    }
+
+    @Test
+    void testStubOnlyRetainsNothing() {
+        LinkedList<String> mockedList = mock(LinkedList.class, withMetrics().stubOnly());
+
+        mockedList.add("one");
+
+        MockMetricsSnapshot snapshot = MockMetrics.of(mockedList).snapshot();
+        assertEquals(1, snapshot.getTotalInvocations());
+        assertEquals(0, snapshot.getRetainedInvocations());
+    }
+
+    @Test
+    void testRegisteredInJmx() throws Exception {
+        LinkedList<String> mockedList = mock(LinkedList.class, withMetrics());
+        mockedList.add("one");
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(MockMetricsRegistry.OBJECT_NAME)));
+        assertTrue(MockMetricsRegistry.getInstance().getMockCount() >= 1);
+        assertTrue(MockMetricsRegistry.getInstance().snapshots().stream()
+                .anyMatch(snapshot -> snapshot.getInvocations().containsKey("add(java.lang.Object)")));
+    }
+
+    /**
+     * 重载的方法分别计数
+     */
+    @Test
+    void testOverloadsCountedSeparately() {
+        LinkedList<String> mockedList = mock(LinkedList.class, withMetrics());
+        when(mockedList.remove()).thenReturn("head");
+
+        mockedList.remove();
+        mockedList.remove(0);
+        mockedList.remove("one");
+        mockedList.remove("two");
+
+        MockMetricsSnapshot snapshot = MockMetrics.of(mockedList).snapshot();
+        assertEquals(2L, (long) snapshot.getInvocations().get("remove()"));
+        assertEquals(1L, (long) snapshot.getInvocations().get("remove(int)"));
+        assertEquals(2L, (long) snapshot.getInvocations().get("remove(java.lang.Object)"));
+        assertEquals(1L, (long) snapshot.getDefaultAnswersByMethod().get("remove()"));
+        assertEquals(1L, (long) snapshot.getDefaultAnswersByMethod().get("remove(int)"));
+        assertEquals(2L, (long) snapshot.getDefaultAnswersByMethod().get("remove(java.lang.Object)"));
+    }
+
+    /**
+     * 用同一个设置创建的 mock 各自计数
+     */
+    @Test
+    void testSharedSettingsCountedPerMock() {
+        MockSettings settings = withMetrics();
+        LinkedList<String> first = mock(LinkedList.class, settings);
+        LinkedList<String> second = mock(LinkedList.class, settings);
+
+        first.add("one");
+        second.add("two");
+        second.add("three");
+
+        assertNotSame(MockMetrics.of(first), MockMetrics.of(second));
+        assertEquals(1, MockMetrics.of(first).snapshot().getTotalInvocations());
+        assertEquals(2, MockMetrics.of(second).snapshot().getTotalInvocations());
+        assertEquals(2, MockMetrics.of(second).snapshot().getRetainedInvocations());
+    }
+}
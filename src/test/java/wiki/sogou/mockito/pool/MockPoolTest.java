@@ -0,0 +1,106 @@
+package wiki.sogou.mockito.pool;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.exceptions.verification.WantedButNotInvoked;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static wiki.sogou.mockito.counting.CountingMocks.*;
+import static wiki.sogou.mockito.pool.MockPool.stateOf;
+
+
+class MockPoolTest {
+
+    /**
+     * 与 MockitoTest.testResettingMock 相同的场景，归还之后打桩和调用记录都被清空
+     */
+    @Test
+    void testReleaseResetsMock() {
+        MockPool<List> pool = new MockPool<>(List.class, 1);
+        List mock = pool.acquire();
+
+        stateOf(mock).doReturn(10).when(mock).size();
+        mock.add(1);
+        assertEquals(10, mock.size());
+        verifyCount(mock).add(1);
+
+        pool.release(mock);
+        List reused = pool.acquire();
+
+        assertSame(mock, reused);
+        assertEquals(0, reused.size());
+        assertThrows(WantedButNotInvoked.class, () -> verifyCount(reused).add(1));
+        verifyCount(reused, never()).add(1);
+    }
+
+    @Test
+    void testReleaseResetsMockitoStubbing() {
+        MockPool<List> pool = new MockPool<>(List.class, 1);
+        List mock = pool.acquire();
+
+        when(mock.size()).thenReturn(10);
+        pool.release(mock);
+
+        assertEquals(0, pool.acquire().size());
+    }
+
+    @Test
+    void testPoolGrowsWhenEmpty() {
+        MockPool<List> pool = new MockPool<>(List.class, 1);
+
+        List first = pool.acquire();
+        List second = pool.acquire();
+
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(2, pool.idle());
+    }
+
+    @Test
+    void testDoubleReleaseIsRejected() {
+        MockPool<List> pool = new MockPool<>(List.class, 0);
+        List mock = pool.acquire();
+
+        pool.release(mock);
+        assertThrows(IllegalStateException.class, () -> pool.release(mock));
+        assertEquals(1, pool.idle());
+        assertSame(mock, pool.acquire());
+        assertNotSame(mock, pool.acquire());
+    }
+
+    /**
+     * 归还之后调用总数从 0 开始，重新使用几次之后不再引用上一轮的打桩
+     */
+    @Test
+    void testReleaseDropsPreviousEpoch() throws InterruptedException {
+        MockPool<List> pool = new MockPool<>(List.class, 1);
+        List mock = pool.acquire();
+        WeakReference<Object> stubbed = stubWithNewValue(mock);
+        mock.add(1);
+        assertEquals(2, stateOf(mock).total());
+
+        pool.release(mock);
+        assertEquals(0, stateOf(mock).total());
+        List reused = pool.acquire();
+        reused.size();
+        reused.size();
+        for (int i = 0; i < 50 && stubbed.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(stubbed.get());
+        assertEquals(2, stateOf(reused).total());
+    }
+
+    private static WeakReference<Object> stubWithNewValue(List mock) {
+        Object value = new Object();
+        stateOf(mock).doReturn(value).when(mock).get(0);
+        assertSame(value, mock.get(0));
+        return new WeakReference<>(value);
+    }
+}
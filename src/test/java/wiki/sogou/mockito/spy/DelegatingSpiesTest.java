@@ -0,0 +1,47 @@
+package wiki.sogou.mockito.spy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static wiki.sogou.mockito.spy.DelegatingSpies.delegatingSpy;
+
+
+class DelegatingSpiesTest {
+
+    /**
+     * 与 MockitoTest.testSpy 相同的场景
+     */
+    @Test
+    void testDelegatingSpy() {
+        List<String> list = new LinkedList<>();
+        List<String> spy = delegatingSpy(List.class, list);
+
+        when(spy.size()).thenReturn(100);
+
+        spy.add("one");
+        spy.add("two");
+
+        assertEquals("one", spy.get(0));
+        assertEquals(100, spy.size());
+        assertEquals(2, list.size());
+
+        verify(spy).add("one");
+        verify(spy).add("two");
+    }
+
+    @Test
+    void testStateIsShared() {
+        LinkedList<String> list = new LinkedList<>();
+        LinkedList<String> spy = delegatingSpy(list);
+
+        list.add("one");
+
+        assertEquals("one", spy.getFirst());
+        doReturn("foo").when(spy).get(5);
+        assertEquals("foo", spy.get(5));
+    }
+}
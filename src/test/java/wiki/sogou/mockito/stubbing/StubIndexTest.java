@@ -0,0 +1,77 @@
+package wiki.sogou.mockito.stubbing;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.exceptions.misusing.InvalidUseOfMatchersException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+class StubIndexTest {
+
+    @Test
+    void testExactArgumentStubbing() {
+        StubIndex stubs = new StubIndex();
+        Map<String, String> mock = mock(Map.class, stubs);
+
+        stubs.doReturn("foo").when(mock).get("some arg");
+        stubs.doThrow(new IllegalStateException()).when(mock).get("bad arg");
+
+        assertEquals("foo", mock.get("some arg"));
+        assertThrows(IllegalStateException.class, () -> mock.get("bad arg"));
+        //没有打桩的实参落到默认 Answer
+        assertNull(mock.get("other arg"));
+
+        //和普通 mock 一样可以验证
+        verify(mock, times(1)).get("some arg");
+    }
+
+    /**
+     * 同样的方法和实参，后一次打桩覆盖前一次 (last stubbing wins)
+     */
+    @Test
+    void testLastStubbingWins() {
+        StubIndex stubs = new StubIndex();
+        Map<String, String> mock = mock(Map.class, stubs);
+
+        stubs.doReturn("one").when(mock).get("some arg");
+        stubs.doReturn("two").when(mock).get("some arg");
+
+        assertEquals("two", mock.get("some arg"));
+        assertEquals(1, stubs.size());
+    }
+
+    /**
+     * matcher 打桩仍然交给 Mockito，精确实参的打桩走索引
+     */
+    @Test
+    void testMatcherStubbingFallsBackToMockito() {
+        StubIndex stubs = new StubIndex();
+        Map<String, String> mock = mock(Map.class, stubs);
+
+        when(mock.get(startsWith("matcher"))).thenReturn("by matcher");
+        stubs.doReturn("by index").when(mock).get("some arg");
+
+        assertEquals("by matcher", mock.get("matcher arg"));
+        assertEquals("by index", mock.get("some arg"));
+    }
+
+    /**
+     * 索引只支持精确实参，用了 matcher 时报错而不是用 matcher 的返回值 ("") 作为 key
+     */
+    @Test
+    void testMatchersAreRejected() {
+        StubIndex stubs = new StubIndex();
+        Map<String, String> mock = mock(Map.class, stubs);
+
+        assertThrows(InvalidUseOfMatchersException.class, () -> stubs.doReturn("foo").when(mock).get(anyString()));
+        assertEquals(0, stubs.size());
+
+        //matcher 已经被取走，不影响之后的 Mockito 调用
+        validateMockitoUsage();
+        when(mock.get("some arg")).thenReturn("bar");
+        assertEquals("bar", mock.get("some arg"));
+    }
+}
@@ -0,0 +1,128 @@
+package wiki.sogou.mockito.verification;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.exceptions.verification.VerificationInOrderFailure;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+
+class SequencedInOrderTest {
+
+    /**
+     * 与 MockitoTest.testVerifyOrder 相同的场景
+     */
+    @Test
+    void testVerifyOrder() {
+        List singleMock = mock(List.class);
+        singleMock.add("was added first");
+        singleMock.add("was added second");
+
+        SequencedInOrder inOrder = SequencedInOrder.of(singleMock);
+        inOrder.verify(singleMock).add("was added first");
+        inOrder.verify(singleMock).add("was added second");
+
+        List firstMock = mock(List.class);
+        List secondMock = mock(List.class);
+        firstMock.add("was called first");
+        secondMock.add("was called second");
+
+        SequencedInOrder inOrder2 = SequencedInOrder.of(firstMock, secondMock);
+        inOrder2.verify(firstMock).add("was called first");
+        inOrder2.verify(secondMock).add("was called second");
+
+        //验证过的调用会被标记，verifyNoMoreInteractions 可以通过
+        verifyNoMoreInteractions(firstMock, secondMock);
+    }
+
+    /**
+     * of() 之后的调用在验证时读取，与 Mockito 的 inOrder 一样
+     */
+    @Test
+    void testCallsAfterOf() {
+        List firstMock = mock(List.class);
+        List secondMock = mock(List.class);
+        SequencedInOrder inOrder = SequencedInOrder.of(firstMock, secondMock);
+
+        firstMock.add("was called first");
+        secondMock.add("was called second");
+        inOrder.verify(firstMock).add("was called first");
+
+        firstMock.add("was called third");
+        inOrder.verify(secondMock).add("was called second");
+        inOrder.verify(firstMock).add("was called third");
+        verifyNoMoreInteractions(firstMock, secondMock);
+
+        secondMock.add("one");
+        firstMock.add("two");
+        secondMock.add("one");
+        inOrder.verify(secondMock).add("one");
+        inOrder.verify(secondMock).add("one");
+        assertThrows(VerificationInOrderFailure.class, () -> inOrder.verify(firstMock).add("two"));
+    }
+
+    @Test
+    void testWrongOrder() {
+        List firstMock = mock(List.class);
+        List secondMock = mock(List.class);
+        firstMock.add("was called first");
+        secondMock.add("was called second");
+
+        SequencedInOrder inOrder = SequencedInOrder.of(firstMock, secondMock);
+        inOrder.verify(secondMock).add("was called second");
+        assertThrows(VerificationInOrderFailure.class, () -> inOrder.verify(firstMock).add("was called first"));
+    }
+
+    @Test
+    void testTimes() {
+        List mock = mock(List.class);
+        mock.add("one");
+        mock.add("two");
+        mock.add("one");
+
+        SequencedInOrder inOrder = SequencedInOrder.of(mock);
+        inOrder.verify(mock, 2).add("one");
+        assertThrows(VerificationInOrderFailure.class, () -> inOrder.verify(mock).add("two"));
+    }
+
+    /**
+     * 与 Mockito 的 InOrder 一样，实际调用次数多于要求时失败
+     */
+    @Test
+    void testTooManyInvocations() {
+        List mock = mock(List.class);
+        mock.add("one");
+        mock.add("one");
+
+        assertThrows(VerificationInOrderFailure.class, () -> SequencedInOrder.of(mock).verify(mock).add("one"));
+        assertThrows(VerificationInOrderFailure.class, () -> SequencedInOrder.of(mock).verify(mock, 3).add("one"));
+        SequencedInOrder.of(mock).verify(mock, 2).add("one");
+    }
+
+    /**
+     * 被其他调用隔开的相同调用可以逐段验证，与 Mockito 的 InOrder 结果一致
+     */
+    @Test
+    void testSeparatedInvocations() {
+        List firstMock = mock(List.class);
+        List secondMock = mock(List.class);
+        firstMock.add("one");
+        secondMock.add("two");
+        firstMock.add("one");
+
+        SequencedInOrder inOrder = SequencedInOrder.of(firstMock, secondMock);
+        inOrder.verify(firstMock).add("one");
+        inOrder.verify(secondMock).add("two");
+        inOrder.verify(firstMock).add("one");
+
+        InOrder mockitoInOrder = inOrder(firstMock, secondMock);
+        mockitoInOrder.verify(firstMock).add("one");
+        mockitoInOrder.verify(secondMock).add("two");
+        mockitoInOrder.verify(firstMock).add("one");
+    }
+}